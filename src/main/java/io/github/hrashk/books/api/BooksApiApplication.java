@@ -2,8 +2,12 @@ package io.github.hrashk.books.api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+/**
+ * The reactive reads need no transactions, so the JPA transaction manager stays the only one.
+ */
+@SpringBootApplication(exclude = R2dbcTransactionManagerAutoConfiguration.class)
 public class BooksApiApplication {
 
     public static void main(String[] args) {
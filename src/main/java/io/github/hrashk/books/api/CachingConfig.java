@@ -1,16 +1,45 @@
 package io.github.hrashk.books.api;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.hrashk.books.api.cache.CacheCodec;
+import io.github.hrashk.books.api.cache.CacheEvictionQueue;
+import io.github.hrashk.books.api.cache.CacheInvalidationPublisher;
+import io.github.hrashk.books.api.cache.CacheProperties;
+import io.github.hrashk.books.api.cache.CoordinatedRedisCacheManager;
+import io.github.hrashk.books.api.cache.SizeRecordingSerializer;
+import io.github.hrashk.books.api.cache.TwoTierCacheManager;
+import io.github.hrashk.books.api.cache.TwoTierCacheMeterBinderProvider;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
 public class CachingConfig {
     @Value("${spring.data.redis.host}")
     private String redisHost;
@@ -18,9 +47,134 @@ public class CachingConfig {
     @Value("${spring.data.redis.port}")
     private int redisPort;
 
+    @Value("${spring.cache.redis.time-to-live}")
+    private Duration timeToLive;
+
+    @Value("${books-api.cache.codec}")
+    private CacheCodec codec;
+
+    /**
+     * Applies to the caches without a spec, like {@code spring.cache.redis.time-to-live}.
+     */
+    @Value("${books-api.cache.local.maximum-size}")
+    private long localMaximumSize;
+
+    /**
+     * Upper bound on how long a node may serve a stale local copy if an invalidation message is lost.
+     */
+    @Value("${books-api.cache.local.time-to-live}")
+    private Duration localTimeToLive;
+
+    @Value("${books-api.cache.invalidation-channel}")
+    private String invalidationChannel;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * How long the other nodes wait for the one loading a missing entry before loading it themselves.
+     */
+    @Value("${books-api.cache.lease-time}")
+    private Duration leaseTime;
+
+    /**
+     * Eagerness of the early refresh: 0 disables it, values above 1 refresh earlier.
+     */
+    @Value("${books-api.cache.early-refresh-beta}")
+    private double earlyRefreshBeta;
+
+    /**
+     * How long after a commit its evictions are repeated, to drop the values read before the commit
+     * and cached after the first eviction.
+     */
+    @Value("${books-api.cache.second-eviction-delay}")
+    private Duration secondEvictionDelay;
+
+    @Bean
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                            CacheInvalidationPublisher publisher,
+                                            CacheProperties properties,
+                                            ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(timeToLive)
+                .serializeValuesWith(SerializationPair.fromSerializer(codec.serializer()));
+
+        Map<String, RedisCacheConfiguration> configurations = new HashMap<>();
+        properties.specs().forEach((name, spec) -> configurations.put(name, defaults
+                .entryTtl((key, value) -> spec.timeToLive(value))
+                .computePrefixWith(cacheName -> spec.keyPrefix())
+                .serializeValuesWith(SerializationPair.fromSerializer(
+                        new SizeRecordingSerializer(codec.serializer(), valueSizes(name, registry))))));
+
+        RedisCacheManager remote = new CoordinatedRedisCacheManager(connectionFactory, defaults, configurations);
+        remote.initializeCaches();
+
+        var refresher = new SimpleAsyncTaskExecutor("cache-refresh-");
+        refresher.setVirtualThreads(virtualThreads);
+
+        return new TwoTierCacheManager(remote, name -> localSpec(properties.specs().get(name)),
+                publisher, leaseTime, earlyRefreshBeta, refresher);
+    }
+
+    @Bean
+    public CacheEvictionQueue cacheEvictionQueue(TwoTierCacheManager cacheManager,
+                                                 CacheInvalidationPublisher publisher) {
+        return new CacheEvictionQueue(cacheManager, publisher, secondEvictionDelay);
+    }
+
+    @Bean
+    public TwoTierCacheMeterBinderProvider twoTierCacheMeterBinderProvider() {
+        return new TwoTierCacheMeterBinderProvider();
+    }
+
+    private Caffeine<Object, Object> localSpec(CacheProperties.Spec spec) {
+        return Caffeine.newBuilder()
+                .maximumSize(spec == null ? localMaximumSize : spec.maximumSize())
+                .expireAfterWrite(localTimeToLive)
+                .recordStats();
+    }
+
+    private static DistributionSummary valueSizes(String cacheName, MeterRegistry registry) {
+        return DistributionSummary.builder("cache.value.size")
+                .description("Size of the values written to Redis")
+                .baseUnit("bytes")
+                .tag("cache", cacheName)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Raw access for {@link io.github.hrashk.books.api.cache.ReactiveCache}, which encodes like the blocking caches.
+     */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        return RedisCacheManager.create(connectionFactory);
+    public ReactiveRedisTemplate<byte[], byte[]> reactiveCacheTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        return new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.byteArray());
+    }
+
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.java());
+        template.afterPropertiesSet();
+
+        return new CacheInvalidationPublisher(template, invalidationChannel);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   TwoTierCacheManager cacheManager) {
+        var executor = new SimpleAsyncTaskExecutor("cache-invalidation-");
+        executor.setVirtualThreads(virtualThreads);
+
+        var container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(executor);
+        container.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+
+        return container;
     }
 
     @Bean
@@ -5,11 +5,20 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
 
 @Entity
+@SqlResultSetMapping(name = Book.BOOK_ROW, classes = @ConstructorResult(targetClass = Book.class, columns = {
+        @ColumnResult(name = "id", type = Long.class),
+        @ColumnResult(name = "title"),
+        @ColumnResult(name = "author"),
+        @ColumnResult(name = "version", type = Long.class),
+        @ColumnResult(name = "category_id", type = Long.class),
+        @ColumnResult(name = "category_name")
+}))
 @Table(name = "books",
         uniqueConstraints = @UniqueConstraint(name = "UniqueTitleAndAuthor", columnNames = {"title", "author"}))
 @Data
@@ -17,8 +26,18 @@ import java.io.Serializable;
 @AllArgsConstructor
 @Builder(toBuilder = true)
 public class Book implements Serializable {
+    /**
+     * The mapping of the native queries selecting the columns of
+     * {@link #Book(Long, String, String, Long, Long, String)}.
+     */
+    public static final String BOOK_ROW = "BookRow";
+
+    /**
+     * The allocation size follows the increment of the sequence, see {@code books-api.id-allocation-size}.
+     */
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -29,4 +48,24 @@ public class Book implements Serializable {
 
     @ManyToOne(optional = false, fetch = FetchType.EAGER)
     private Category category;
+
+    /**
+     * Incremented by every update of the book, which makes it a strong ETag.
+     * Not a part of the equality, which compares the contents of the books.
+     */
+    @Version
+    @EqualsAndHashCode.Exclude
+    private Long version;
+
+    public Book(Long id, String title, String author, Category category) {
+        this(id, title, author, category, null);
+    }
+
+    /**
+     * A book read by a projection query. It is not managed, so it costs no dirty checking
+     * and modifying it has no effect on the database.
+     */
+    public Book(Long id, String title, String author, Long version, Long categoryId, String categoryName) {
+        this(id, title, author, new Category(categoryId, categoryName), version);
+    }
 }
@@ -0,0 +1,9 @@
+package io.github.hrashk.books.api.books;
+
+/**
+ * Published by {@link BookService} when a book is added or modified.
+ *
+ * @param book the saved state of the book
+ */
+public record BookChangedEvent(Book book) {
+}
@@ -0,0 +1,15 @@
+package io.github.hrashk.books.api.books;
+
+import io.github.hrashk.books.api.util.PartialUpdateConfig;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+@Mapper(config = PartialUpdateConfig.class)
+public interface BookCopier {
+    /**
+     * The version is left to Hibernate.
+     */
+    @Mapping(target = "version", ignore = true)
+    void copyNonNullProperties(Book from, @MappingTarget Book into);
+}
@@ -0,0 +1,7 @@
+package io.github.hrashk.books.api.books;
+
+/**
+ * Published by {@link BookService} when a book is deleted.
+ */
+public record BookDeletedEvent(Long id) {
+}
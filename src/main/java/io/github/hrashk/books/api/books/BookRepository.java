@@ -1,14 +1,52 @@
 package io.github.hrashk.books.api.books;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookSearchRepository {
+    /**
+     * The columns of a book and its category, read into unmanaged books in a single statement.
+     */
+    String SELECT_BOOK_ROWS = "select new io.github.hrashk.books.api.books.Book("
+            + "b.id, b.title, b.author, b.version, c.id, c.name) from Book b join b.category c";
+
+    /**
+     * @return read-only copies of the books, see {@link #SELECT_BOOK_ROWS}
+     */
+    @Query(SELECT_BOOK_ROWS + " where c.name = :name")
     List<Book> findByCategoryName(String name);
 
+    @EntityGraph(attributePaths = "category")
     Optional<Book> findByTitleAndAuthor(String title, String author);
+
+    @EntityGraph(attributePaths = "category")
+    List<Book> findByTitleIn(Collection<String> titles);
+
+    /**
+     * @return read-only copies of the books, see {@link #SELECT_BOOK_ROWS}
+     */
+    @Query(SELECT_BOOK_ROWS + " where b.id > :id order by b.id")
+    List<Book> findByIdGreaterThanOrderById(Long id, Limit limit);
+
+    /**
+     * Reads the whole table through a server-side cursor. Must be consumed within a transaction.
+     */
+    @Query("select b from Book b join fetch b.category order by b.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Book> streamAll();
 }
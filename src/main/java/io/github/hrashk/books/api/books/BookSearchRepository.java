@@ -0,0 +1,12 @@
+package io.github.hrashk.books.api.books;
+
+import java.util.List;
+
+public interface BookSearchRepository {
+    /**
+     * Matches the words as prefixes with the full-text index, and the text as a whole against the words
+     * of the title and author with the trigram indexes, which tolerates typos.
+     * The best matches come first, the ties are broken by id.
+     */
+    List<Book> search(SearchTerms terms, long offset, int limit);
+}
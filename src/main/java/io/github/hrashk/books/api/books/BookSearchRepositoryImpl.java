@@ -0,0 +1,37 @@
+package io.github.hrashk.books.api.books;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Not a {@code @Query}: the JSqlParser Spring Data runs over the native queries does not know the trigram operators.
+ * The expressions must match the indexes of the {@code V2__search_indexes} migration.
+ * The books are read with their categories into unmanaged instances, like the list finders of {@link BookRepository}.
+ */
+@RequiredArgsConstructor
+class BookSearchRepositoryImpl implements BookSearchRepository {
+    private static final String SEARCH = """
+            select b.id, b.title, b.author, b.version, c.id as category_id, c.name as category_name
+            from books b join categories c on c.id = b.category_id
+            where to_tsvector('simple', b.title || ' ' || b.author) @@ to_tsquery('simple', :tsQuery)
+               or :text <% b.title or :text <% b.author
+            order by ts_rank(to_tsvector('simple', b.title || ' ' || b.author), to_tsquery('simple', :tsQuery))
+                   + greatest(word_similarity(:text, b.title), word_similarity(:text, b.author)) desc,
+                     b.id
+            offset :offset limit :limit""";
+
+    private final EntityManager entityManager;
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<Book> search(SearchTerms terms, long offset, int limit) {
+        return entityManager.createNativeQuery(SEARCH, Book.BOOK_ROW)
+                .setParameter("tsQuery", terms.tsQuery())
+                .setParameter("text", terms.text())
+                .setParameter("offset", offset)
+                .setParameter("limit", limit)
+                .getResultList();
+    }
+}
@@ -1,43 +1,143 @@
 package io.github.hrashk.books.api.books;
 
+import io.github.hrashk.books.api.cache.CacheEvictionQueue;
+import io.github.hrashk.books.api.cdc.CapturedChanges;
+import io.github.hrashk.books.api.cdc.RowChange;
 import io.github.hrashk.books.api.categories.Category;
 import io.github.hrashk.books.api.categories.CategoryService;
 import io.github.hrashk.books.api.common.CrudResult;
 import io.github.hrashk.books.api.common.CrudService;
 import io.github.hrashk.books.api.exceptions.EntityNotFoundException;
-import io.github.hrashk.books.api.util.BeanCopyUtils;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class BookService implements CrudService<Book, Long> {
-    static final String BOOKS = "books";
+    public static final String BOOKS_BY_CATEGORY = "books-by-category";
+    public static final String BOOK_BY_TITLE_AND_AUTHOR = "book-by-title-and-author";
+    public static final String BOOK_SEARCH = "book-search";
+    public static final String SEARCH_GENERATIONS = "search-generations";
+    public static final String BOOK_VERSIONS = "book-versions";
+    public static final String CATEGORY_REVISIONS = "category-revisions";
+    /**
+     * The rendered JSON of {@link #BOOKS_BY_CATEGORY}, filled by the web layer when
+     * {@code books-api.rendered-responses.enabled} is set. Evicted whatever the setting,
+     * as the nodes share the entries and may not share the setting.
+     */
+    public static final String RENDERED_BOOKS_BY_CATEGORY = "rendered-books-by-category";
+    /**
+     * The rendered JSON of {@link #BOOK_BY_TITLE_AND_AUTHOR}, see {@link #RENDERED_BOOKS_BY_CATEGORY}.
+     */
+    public static final String RENDERED_BOOK_BY_TITLE_AND_AUTHOR = "rendered-book-by-title-and-author";
     private final BookRepository repository;
     private final CategoryService categoryService;
+    private final BookCopier copier;
     private final CacheManager cacheManager;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher events;
+    private final CacheEvictionQueue evictions;
+
+    /**
+     * Keyset pagination ordered by id.
+     *
+     * @param after the id of the last book of the previous page or {@code null} for the first page
+     */
+    public List<Book> findPage(Long after, int limit) {
+        return repository.findByIdGreaterThanOrderById(after == null ? 0L : after, Limit.of(limit));
+    }
 
-    public List<Book> findAll() {
-        return repository.findAll();
+    /**
+     * Feeds all the books to the consumer in the id order.
+     * The books are detached right after being consumed, so the memory footprint does not grow with the table.
+     */
+    @Transactional
+    public void forEach(Consumer<Book> consumer) {
+        try (Stream<Book> books = repository.streamAll()) {
+            books.forEach(book -> {
+                consumer.accept(book);
+                entityManager.detach(book);
+            });
+        }
     }
 
-    @Cacheable(BOOKS)
+    @Cacheable(cacheNames = BOOKS_BY_CATEGORY, sync = true)
     public List<Book> findByCategory(String category) {
         return repository.findByCategoryName(category);
     }
 
-    @Cacheable(BOOKS)
-    public Book findByTitleAndAuthor(String title, String author) {
-        return repository.findByTitleAndAuthor(title, author)
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "No book found with title '%s' by %s".formatted(title, author)));
+    /**
+     * A token that changes whenever a book joins, leaves or changes in the category, the ETag of its listing.
+     * <p>
+     * It is a random number rather than a counter: the cache entry may expire or be evicted
+     * for lack of space, and a counter starting anew would repeat the tokens the clients already hold.
+     */
+    @Cacheable(cacheNames = CATEGORY_REVISIONS, sync = true)
+    public long categoryRevision(String category) {
+        return ThreadLocalRandom.current().nextLong() >>> 1;
+    }
+
+    /**
+     * Looks at the cache only, never at the database.
+     *
+     * @return the version of the book if it was read recently and has not changed since, {@code null} otherwise
+     */
+    public Long cachedVersion(Long id) {
+        return cache(BOOK_VERSIONS).get(id, Long.class);
+    }
+
+    /**
+     * A token that changes whenever a book changes, a part of the keys of {@link #search(SearchTerms, long, int)}.
+     * A change thus evicts a single entry instead of clearing the cached results, which would scan the keys
+     * of Redis. The results of the former generations are no longer looked up and expire by themselves.
+     * <p>
+     * It is a random number for the same reason as {@link #categoryRevision(String)}.
+     */
+    @Cacheable(cacheNames = SEARCH_GENERATIONS, sync = true)
+    public long searchGeneration() {
+        return ThreadLocalRandom.current().nextLong() >>> 1;
+    }
+
+    /**
+     * Ranked search over the titles and authors. Any change to the books starts a new {@link #searchGeneration()},
+     * so the cache pays off for the popular queries between the writes.
+     *
+     * @param offset the number of best matches to skip
+     */
+    @Cacheable(cacheNames = BOOK_SEARCH, key = "{@bookService.searchGeneration(), #terms, #offset, #limit}",
+            sync = true)
+    public List<Book> search(SearchTerms terms, long offset, int limit) {
+        return repository.search(terms, offset, limit);
+    }
+
+    /**
+     * The misses are cached as well, for the shorter {@code missing-time-to-live} of the cache, so that probing
+     * for an absent book costs a single cache lookup. A book added meanwhile evicts the miss like any other entry.
+     */
+    @Cacheable(cacheNames = BOOK_BY_TITLE_AND_AUTHOR, sync = true)
+    public Optional<Book> findByTitleAndAuthor(String title, String author) {
+        return repository.findByTitleAndAuthor(title, author);
     }
 
     /**
@@ -48,7 +148,7 @@ public class BookService implements CrudService<Book, Long> {
      */
     @Transactional
     @Override
-    public CrudResult<Long> add(Book book) {
+    public CrudResult<Book> add(Book book) {
         getOrAddCategory(book);
 
         return repository.findByTitleAndAuthor(book.getTitle(), book.getAuthor())
@@ -56,6 +156,64 @@ public class BookService implements CrudService<Book, Long> {
                 .orElseGet(() -> CrudResult.created(save(book)));
     }
 
+    /**
+     * Bulk version of {@link #add(Book)}. The books are processed in order,
+     * so a book repeating the title and author of an earlier one in the same list is reported as
+     * {@link CrudResult.Status#FOUND}. The new books are written with batched inserts.
+     *
+     * @return the results in the order of the books
+     */
+    @Transactional
+    public List<CrudResult<Book>> addAll(List<Book> books) {
+        Map<String, Category> categories = categoryService.getOrAddAll(
+                books.stream().map(b -> b.getCategory().getName()).toList());
+
+        Map<SimpleKey, Book> existing = new HashMap<>();
+        repository.findByTitleIn(books.stream().map(Book::getTitle).toList())
+                .forEach(b -> existing.put(titleAndAuthor(b), b));
+
+        Set<String> evictedCategories = new HashSet<>();
+        Set<SimpleKey> evictedTitlesAndAuthors = new HashSet<>();
+        List<Book> targets = new ArrayList<>(books.size());
+        List<CrudResult.Status> statuses = new ArrayList<>(books.size());
+        List<Book> newBooks = new ArrayList<>();
+
+        for (Book book : books) {
+            book.setCategory(categories.get(book.getCategory().getName()));
+            evictedCategories.add(book.getCategory().getName());
+            evictedTitlesAndAuthors.add(titleAndAuthor(book));
+
+            Book found = existing.putIfAbsent(titleAndAuthor(book), book);
+
+            if (found == null) {
+                newBooks.add(book);
+                targets.add(book);
+                statuses.add(CrudResult.Status.CREATED);
+            } else {
+                evictedCategories.add(found.getCategory().getName());
+                copier.copyNonNullProperties(book, found);
+                targets.add(found);
+                statuses.add(CrudResult.Status.FOUND);
+            }
+        }
+
+        evictedCategories.forEach(this::evictCategory);
+        evictedTitlesAndAuthors.forEach(this::evictTitleAndAuthor);
+        evictSearches();
+
+        repository.saveAll(newBooks);
+        targets.stream().distinct().forEach(b -> {
+            rememberVersion(b);
+            events.publishEvent(new BookChangedEvent(b));
+        });
+
+        List<CrudResult<Book>> results = new ArrayList<>(books.size());
+        for (int i = 0; i < targets.size(); i++)
+            results.add(new CrudResult<>(statuses.get(i), targets.get(i)));
+
+        return results;
+    }
+
     /**
      * @return <ul>
      * <li>{@link CrudResult.Status#UPDATED} if the book was updated.</li>
@@ -65,7 +223,7 @@ public class BookService implements CrudService<Book, Long> {
      */
     @Transactional
     @Override
-    public CrudResult<Long> update(Long id, Book book) {
+    public CrudResult<Book> update(Long id, Book book) {
         var byId = repository.findById(id);
 
         if (byId.isEmpty()) {
@@ -83,10 +241,17 @@ public class BookService implements CrudService<Book, Long> {
         }
     }
 
+    /**
+     * Remembers the version of the book for {@link #cachedVersion(Long)}, unless a version is cached already.
+     * A read that lost the race to an update thus never replaces the version the update has put.
+     */
     @Override
     public Book findById(Long id) throws EntityNotFoundException {
-        return repository.findById(id)
+        Book book = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Book", id));
+        cache(BOOK_VERSIONS).putIfAbsent(id, book.getVersion());
+
+        return book;
     }
 
     @Override
@@ -95,29 +260,158 @@ public class BookService implements CrudService<Book, Long> {
         delete(findById(id));
     }
 
-    private Long save(Book book) {
+    /**
+     * Evicts the entries of the books and the categories changed past this service, e.g. by bulk loads,
+     * and passes the books on to the listeners of {@link BookChangedEvent} and {@link BookDeletedEvent}.
+     * The changes made by this service come back here as well, evicting them once more does no harm.
+     * A failure to evict is thrown, so that the capture does not confirm the changes and replays them.
+     */
+    @EventListener
+    public void onCaptured(CapturedChanges captured) {
+        Map<Long, Optional<String>> categoryNames = new HashMap<>();
+
+        evictions.inBatch(() -> captured.changes().forEach(change -> {
+            switch (change.table()) {
+                case "books" -> applyCapturedBook(change, categoryNames);
+                case "categories" -> applyCapturedCategory(change);
+                default -> {
+                }
+            }
+        }));
+    }
+
+    private void applyCapturedBook(RowChange change, Map<Long, Optional<String>> categoryNames) {
+        if (change.operation() == RowChange.Operation.TRUNCATE) {
+            Stream.of(BOOKS_BY_CATEGORY, CATEGORY_REVISIONS, BOOK_BY_TITLE_AND_AUTHOR, BOOK_VERSIONS,
+                            RENDERED_BOOKS_BY_CATEGORY, RENDERED_BOOK_BY_TITLE_AND_AUTHOR)
+                    .forEach(evictions::clear);
+            evictSearches();
+
+            return;
+        }
+
+        Book before = change.before().isEmpty() ? null : capturedBook(change.before(), categoryNames);
+        Book after = change.after().isEmpty() ? null : capturedBook(change.after(), categoryNames);
+
+        Stream.of(before, after).filter(Objects::nonNull).forEach(book -> {
+            // the name is unknown once the category is deleted, which evicts its books by itself
+            if (book.getCategory().getName() != null)
+                evictCategory(book.getCategory().getName());
+
+            evictTitleAndAuthor(titleAndAuthor(book));
+            evictions.evict(BOOK_VERSIONS, book.getId());
+        });
+        evictSearches();
+
+        if (after == null)
+            events.publishEvent(new BookDeletedEvent(before.getId()));
+        else
+            events.publishEvent(new BookChangedEvent(after));
+    }
+
+    /**
+     * A renamed category changes the books it holds, which are cached by their title and author.
+     */
+    private void applyCapturedCategory(RowChange change) {
+        if (change.operation() == RowChange.Operation.TRUNCATE) {
+            categoryService.reload();
+            return;
+        }
+
+        String before = change.before().get("name");
+        String after = change.after().get("name");
+
+        if (before != null) {
+            categoryService.forget(before);
+            evictCategory(before);
+        }
+
+        if (after != null)
+            evictCategory(after);
+
+        if (before != null && after != null && !before.equals(after)) {
+            evictions.clear(BOOK_BY_TITLE_AND_AUTHOR);
+            evictSearches();
+            evictions.clear(RENDERED_BOOK_BY_TITLE_AND_AUTHOR);
+        }
+    }
+
+    private Book capturedBook(Map<String, String> row, Map<Long, Optional<String>> categoryNames) {
+        Long categoryId = Long.valueOf(row.get("category_id"));
+        String category = categoryNames.computeIfAbsent(categoryId, categoryService::findName).orElse(null);
+
+        return new Book(Long.valueOf(row.get("id")), row.get("title"), row.get("author"),
+                Long.valueOf(row.get("version")), categoryId, category);
+    }
+
+    private Book save(Book book) {
         evict(book);
 
-        return repository.save(book).getId();
+        Book saved = repository.save(book);
+        rememberVersion(saved);
+        events.publishEvent(new BookChangedEvent(saved));
+
+        return saved;
     }
 
-    private Long saveCopy(Book from, Book into) {
+    private Book saveCopy(Book from, Book into) {
         evict(from);
         evict(into);
 
-        BeanCopyUtils.copyProperties(from, into);
-        return repository.save(into).getId();
+        copier.copyNonNullProperties(from, into);
+        Book saved = repository.save(into);
+        rememberVersion(saved);
+        events.publishEvent(new BookChangedEvent(saved));
+
+        return saved;
     }
 
     private void delete(Book book) {
         evict(book);
+        evictions.evict(BOOK_VERSIONS, book.getId());
 
         repository.delete(book);
+        events.publishEvent(new BookDeletedEvent(book.getId()));
     }
 
     private void evict(Book book) {
-        cacheManager.getCache(BOOKS).evict(book.getCategory().getName());
-        cacheManager.getCache(BOOKS).evict(new SimpleKey(book.getTitle(), book.getAuthor()));
+        evictCategory(book.getCategory().getName());
+        evictTitleAndAuthor(titleAndAuthor(book));
+        evictSearches();
+    }
+
+    /**
+     * Puts the version of the book once the transaction commits, which is when it is final.
+     */
+    private void rememberVersion(Book book) {
+        evictions.replace(BOOK_VERSIONS, book.getId(), book::getVersion);
+    }
+
+    private void evictCategory(String category) {
+        evictions.evict(BOOKS_BY_CATEGORY, category);
+        evictions.evict(CATEGORY_REVISIONS, category);
+        evictions.evict(RENDERED_BOOKS_BY_CATEGORY, category);
+    }
+
+    private void evictTitleAndAuthor(SimpleKey key) {
+        evictions.evict(BOOK_BY_TITLE_AND_AUTHOR, key);
+        evictions.evict(RENDERED_BOOK_BY_TITLE_AND_AUTHOR, key);
+    }
+
+    private void evictSearches() {
+        evictions.evict(SEARCH_GENERATIONS, SimpleKey.EMPTY);
+    }
+
+    private Cache cache(String name) {
+        return Objects.requireNonNull(cacheManager.getCache(name), name);
+    }
+
+    public static EntityNotFoundException notFound(String title, String author) {
+        return new EntityNotFoundException("No book found with title '%s' by %s".formatted(title, author));
+    }
+
+    private static SimpleKey titleAndAuthor(Book book) {
+        return new SimpleKey(book.getTitle(), book.getAuthor());
     }
 
     private void getOrAddCategory(Book book) {
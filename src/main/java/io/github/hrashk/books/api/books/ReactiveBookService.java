@@ -0,0 +1,146 @@
+package io.github.hrashk.books.api.books;
+
+import io.github.hrashk.books.api.cache.ReactiveCache;
+import io.github.hrashk.books.api.categories.Category;
+import io.github.hrashk.books.api.exceptions.EntityNotFoundException;
+import io.r2dbc.spi.Readable;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static io.github.hrashk.books.api.books.BookService.BOOKS_BY_CATEGORY;
+import static io.github.hrashk.books.api.books.BookService.BOOK_BY_TITLE_AND_AUTHOR;
+
+/**
+ * Non-blocking reads of the books. The lookups use the Redis entries of {@link BookService} under the same keys,
+ * so an entry cached by either service serves both and the evictions done by the writes apply to both.
+ */
+@Service
+public class ReactiveBookService {
+    private static final String SELECT = """
+            select b.id, b.title, b.author, b.version, c.id as category_id, c.name as category_name
+            from books b join categories c on c.id = b.category_id
+            """;
+    private static final int FETCH_SIZE = 500;
+    /**
+     * The largest listing kept in the cache, a larger one would hold the memory of all its rows while streaming.
+     */
+    private static final int MAX_CACHED_LISTING = 1000;
+
+    private final DatabaseClient db;
+    private final ReactiveCache booksByCategory;
+    private final ReactiveCache bookByTitleAndAuthor;
+
+    public ReactiveBookService(DatabaseClient db, CacheManager cacheManager,
+                               ReactiveRedisTemplate<byte[], byte[]> reactiveCacheTemplate) {
+        this.db = db;
+        this.booksByCategory = reactiveCache(cacheManager, BOOKS_BY_CATEGORY, reactiveCacheTemplate);
+        this.bookByTitleAndAuthor = reactiveCache(cacheManager, BOOK_BY_TITLE_AND_AUTHOR, reactiveCacheTemplate);
+    }
+
+    /**
+     * @see BookService#findPage(Long, int)
+     */
+    public Flux<Book> findPage(Long after, int limit) {
+        return db.sql(SELECT + "where b.id > :after order by b.id limit :limit")
+                .bind("after", after == null ? 0L : after)
+                .bind("limit", limit)
+                .map(ReactiveBookService::toBook)
+                .all();
+    }
+
+    public Mono<Book> findById(Long id) {
+        return db.sql(SELECT + "where b.id = :id")
+                .bind("id", id)
+                .map(ReactiveBookService::toBook)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException("Book", id)));
+    }
+
+    /**
+     * A cached listing is replayed from memory. Otherwise the rows are fetched from a cursor
+     * as fast as the subscriber consumes them, and the listing is cached once it completes,
+     * unless it has more than {@value #MAX_CACHED_LISTING} books. The larger ones are streamed every time
+     * in constant memory.
+     */
+    @SuppressWarnings("unchecked")
+    public Flux<Book> findByCategory(String category) {
+        Flux<Book> load = Flux.defer(() -> {
+            Listing loaded = new Listing();
+
+            return db.sql(SELECT + "where c.name = :category order by b.id")
+                    .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                    .bind("category", category)
+                    .map(ReactiveBookService::toBook)
+                    .all()
+                    .doOnNext(loaded::add)
+                    .concatWith(Mono.defer(() -> loaded.books == null
+                            ? Mono.empty()
+                            : booksByCategory.put(category, loaded.books)).then(Mono.empty()));
+        });
+
+        return booksByCategory.get(category)
+                .map(cached -> Flux.fromIterable((List<Book>) cached))
+                .defaultIfEmpty(load)
+                .flatMapMany(books -> books);
+    }
+
+    /**
+     * @see BookService#findByTitleAndAuthor(String, String)
+     */
+    public Mono<Book> findByTitleAndAuthor(String title, String author) {
+        SimpleKey key = new SimpleKey(title, author);
+
+        Mono<Book> load = db.sql(SELECT + "where b.title = :title and b.author = :author")
+                .bind("title", title)
+                .bind("author", author)
+                .map(ReactiveBookService::toBook)
+                .one()
+                .flatMap(book -> bookByTitleAndAuthor.put(key, book).thenReturn(book))
+                .switchIfEmpty(Mono.defer(() -> bookByTitleAndAuthor.put(key, null)
+                        .then(Mono.error(BookService.notFound(title, author)))));
+
+        return bookByTitleAndAuthor.get(key)
+                .flatMap(cached -> cached instanceof Book book
+                        ? Mono.just(book)
+                        : Mono.<Book>error(BookService.notFound(title, author)))
+                .switchIfEmpty(load);
+    }
+
+    /**
+     * The books of a listing being streamed, dropped once there are too many of them to cache.
+     */
+    private static final class Listing {
+        private List<Book> books = new ArrayList<>();
+
+        void add(Book book) {
+            if (books == null)
+                return;
+
+            if (books.size() < MAX_CACHED_LISTING)
+                books.add(book);
+            else
+                books = null;
+        }
+    }
+
+    private static Book toBook(Readable row) {
+        Category category = new Category(row.get("category_id", Long.class), row.get("category_name", String.class));
+
+        return new Book(row.get("id", Long.class), row.get("title", String.class), row.get("author", String.class),
+                category, row.get("version", Long.class));
+    }
+
+    private static ReactiveCache reactiveCache(CacheManager cacheManager, String name,
+                                               ReactiveRedisTemplate<byte[], byte[]> template) {
+        return ReactiveCache.of(Objects.requireNonNull(cacheManager.getCache(name), name), template);
+    }
+}
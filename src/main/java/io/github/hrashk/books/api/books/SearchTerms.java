@@ -0,0 +1,44 @@
+package io.github.hrashk.books.api.books;
+
+import jakarta.validation.ValidationException;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A search query reduced to its words, so that the equivalent queries share a cache entry.
+ *
+ * @param text    the lower case words separated by single spaces
+ * @param tsQuery a Postgres {@code tsquery} matching all the words, each as a prefix
+ */
+public record SearchTerms(String text, String tsQuery) {
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * @throws ValidationException if the query has no letters or digits
+     */
+    public static SearchTerms parse(String query) {
+        String[] words = words(query);
+
+        if (words.length == 0)
+            throw new ValidationException("Search query must contain letters or digits");
+
+        return new SearchTerms(String.join(" ", words),
+                Arrays.stream(words).map(w -> w + ":*").collect(Collectors.joining(" & ")));
+    }
+
+    /**
+     * @return the lower case runs of letters and digits of the text
+     */
+    public static String[] words(String text) {
+        return Arrays.stream(NON_WORD.split(text.toLowerCase(Locale.ROOT)))
+                .filter(w -> !w.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    public String[] words() {
+        return text.split(" ");
+    }
+}
@@ -0,0 +1,294 @@
+package io.github.hrashk.books.api.books.search;
+
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.books.SearchTerms;
+import io.github.hrashk.books.api.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An inverted index of the books held in memory, from the words of their titles and authors and from their categories.
+ * <p>
+ * Every indexed book gets a document number, the postings are sorted arrays of these numbers.
+ * A modified book is indexed anew under the next number and its previous document is marked as deleted,
+ * so the postings are only ever appended to. The index is compacted once half of the documents are deleted.
+ * <p>
+ * Thread safe: the searches share a read lock, the modifications take the write lock.
+ */
+public class BookIndex {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_COMPACTED_SIZE = 1024;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int TREE_ENTRY = 40;
+    private static final int POSTINGS = 24;
+    private static final int STRING = 24 + ARRAY_HEADER;
+    /**
+     * Roughly the number of steps of a binary search in long postings.
+     */
+    private static final int PROBE_COST = 20;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<String, Postings> words = new TreeMap<>();
+    private final Map<String, Postings> categories = new HashMap<>();
+    private final LongIntMap documentsById = new LongIntMap();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private String[] authors = new String[INITIAL_CAPACITY];
+    private Category[] bookCategories = new Category[INITIAL_CAPACITY];
+    private final BitSet deleted = new BitSet();
+    private int documents;
+    private long stringBytes;
+
+    /**
+     * @param documents     the books that can be found
+     * @param deleted       the documents waiting for a compaction
+     * @param words         the distinct words
+     * @param postings      the total length of the postings
+     * @param estimatedSize the approximate heap footprint in bytes, titles and authors included
+     */
+    public record Statistics(int documents, int deleted, int words, long postings, long estimatedSize) {
+    }
+
+    /**
+     * Adds the book or replaces its previous version.
+     */
+    public void put(Book book) {
+        lock.writeLock().lock();
+        try {
+            markDeleted(documentsById.get(book.getId()));
+            index(book.getId(), book.getTitle(), book.getAuthor(), book.getCategory());
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            markDeleted(documentsById.remove(id));
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the books having a word starting with each of the given ones in their title or author.
+     * The books come in the order they were indexed in, not ranked.
+     *
+     * @param category the exact name of the category of the books or {@code null} for any category
+     * @param offset   the number of matches to skip
+     */
+    public List<Book> search(SearchTerms terms, String category, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = matchAll(terms, category);
+
+            List<Book> books = new ArrayList<>(Math.min(limit, matches.cardinality()));
+            int document = matches.nextSetBit(0);
+
+            for (long skipped = 0; document >= 0 && skipped < offset; skipped++)
+                document = matches.nextSetBit(document + 1);
+
+            for (; document >= 0 && books.size() < limit; document = matches.nextSetBit(document + 1))
+                books.add(new Book(ids[document], titles[document], authors[document], bookCategories[document]));
+
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Statistics statistics() {
+        lock.readLock().lock();
+        try {
+            long postings = 0;
+            long size = stringBytes + documentsById.estimatedBytes() + deleted.size() / 8
+                    + 4L * ARRAY_HEADER + (long) ids.length * (Long.BYTES + 3 * REFERENCE);
+
+            for (var entry : words.entrySet()) {
+                postings += entry.getValue().size;
+                size += TREE_ENTRY + stringSize(entry.getKey()) + entry.getValue().estimatedBytes();
+            }
+
+            for (Postings p : categories.values())
+                size += p.estimatedBytes();
+
+            return new Statistics(documentsById.size(), deleted.cardinality(), words.size(), postings, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Starts from the rarest criterion. Once the candidates are few, the postings of the others are probed
+     * with binary searches rather than expanded into bit sets.
+     */
+    private BitSet matchAll(SearchTerms terms, String category) {
+        List<List<Postings>> criteria = new ArrayList<>();
+
+        if (category != null)
+            criteria.add(categories.containsKey(category) ? List.of(categories.get(category)) : List.of());
+
+        for (String word : terms.words())
+            criteria.add(List.copyOf(words.subMap(word, true, word + Character.MAX_VALUE, false).values()));
+
+        criteria.sort(Comparator.comparingLong(BookIndex::totalSize));
+
+        BitSet matches = new BitSet(documents);
+        criteria.get(0).forEach(postings -> postings.addTo(matches));
+        matches.andNot(deleted);
+
+        for (List<Postings> criterion : criteria.subList(1, criteria.size())) {
+            long candidates = matches.cardinality();
+
+            if (candidates == 0)
+                break;
+
+            if (candidates * criterion.size() * PROBE_COST < totalSize(criterion)) {
+                for (int d = matches.nextSetBit(0); d >= 0; d = matches.nextSetBit(d + 1)) {
+                    int document = d;
+
+                    if (criterion.stream().noneMatch(postings -> postings.contains(document)))
+                        matches.clear(document);
+                }
+            } else {
+                BitSet matching = new BitSet(documents);
+                criterion.forEach(postings -> postings.addTo(matching));
+                matches.and(matching);
+            }
+        }
+
+        return matches;
+    }
+
+    private static long totalSize(List<Postings> criterion) {
+        return criterion.stream().mapToLong(postings -> postings.size).sum();
+    }
+
+    private void index(long id, String title, String author, Category category) {
+        if (documents == ids.length)
+            grow();
+
+        int document = documents++;
+        ids[document] = id;
+        titles[document] = title;
+        authors[document] = author;
+        bookCategories[document] = category;
+        stringBytes += stringSize(title) + stringSize(author);
+        documentsById.put(id, document);
+
+        categories.computeIfAbsent(category.getName(), name -> new Postings()).add(document);
+
+        for (String word : SearchTerms.words(title + " " + author))
+            words.computeIfAbsent(word, w -> new Postings()).add(document);
+    }
+
+    private void markDeleted(int document) {
+        if (document != LongIntMap.MISSING)
+            deleted.set(document);
+    }
+
+    /**
+     * Indexes the live documents anew, which shrinks the postings and renumbers the documents.
+     */
+    private void compactIfSparse() {
+        int deletedCount = deleted.cardinality();
+
+        if (documents < MIN_COMPACTED_SIZE || deletedCount < documents / 2)
+            return;
+
+        long[] liveIds = new long[documents - deletedCount];
+        String[] liveTitles = new String[liveIds.length];
+        String[] liveAuthors = new String[liveIds.length];
+        Category[] liveCategories = new Category[liveIds.length];
+        int live = 0;
+
+        for (int document = deleted.nextClearBit(0); document < documents; document = deleted.nextClearBit(document + 1)) {
+            liveIds[live] = ids[document];
+            liveTitles[live] = titles[document];
+            liveAuthors[live] = authors[document];
+            liveCategories[live] = bookCategories[document];
+            live++;
+        }
+
+        words.clear();
+        categories.clear();
+        documentsById.clear();
+        deleted.clear();
+        documents = 0;
+        stringBytes = 0;
+        Arrays.fill(titles, null);
+        Arrays.fill(authors, null);
+        Arrays.fill(bookCategories, null);
+
+        for (int i = 0; i < live; i++)
+            index(liveIds[i], liveTitles[i], liveAuthors[i], liveCategories[i]);
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        authors = Arrays.copyOf(authors, capacity);
+        bookCategories = Arrays.copyOf(bookCategories, capacity);
+    }
+
+    private static long stringSize(String s) {
+        return STRING + s.length() * (s.chars().allMatch(c -> c < 256) ? 1L : 2L);
+    }
+
+    /**
+     * The ascending document numbers of a word or category.
+     */
+    private static final class Postings {
+        private int[] documents = new int[2];
+        private int size;
+
+        void add(int document) {
+            if (size > 0 && documents[size - 1] == document)
+                return;
+
+            if (size == documents.length)
+                documents = Arrays.copyOf(documents, size + (size >> 1) + 1);
+
+            documents[size++] = document;
+        }
+
+        boolean contains(int document) {
+            return Arrays.binarySearch(documents, 0, size, document) >= 0;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++)
+                bits.set(documents[i]);
+        }
+
+        long estimatedBytes() {
+            return POSTINGS + ARRAY_HEADER + (long) documents.length * Integer.BYTES;
+        }
+    }
+}
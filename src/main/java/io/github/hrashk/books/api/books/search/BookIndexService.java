@@ -0,0 +1,190 @@
+package io.github.hrashk.books.api.books.search;
+
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.books.BookChangedEvent;
+import io.github.hrashk.books.api.books.BookDeletedEvent;
+import io.github.hrashk.books.api.books.BookService;
+import io.github.hrashk.books.api.books.SearchTerms;
+import io.github.hrashk.books.api.cdc.CapturedChanges;
+import io.github.hrashk.books.api.cdc.RowChange;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a {@link BookIndex} of all the books: it is built in the background on startup and then follows
+ * the committed changes. It is off unless {@code books-api.search-index.enabled} is set, as it scans the table
+ * and holds all the books in the heap of every node.
+ * <p>
+ * The changes committed while the index is being built are applied to the old one and replayed on the new one,
+ * as the database snapshot it is built from may miss them. Replaying a change it already has does no harm.
+ * <p>
+ * The changes are applied on the request threads, so they are guarded by locks rather than monitors,
+ * which would pin the virtual threads waiting for the index.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "books-api.search-index.enabled", havingValue = "true")
+public class BookIndexService implements AutoCloseable {
+    private final BookService books;
+    private final Timer searches;
+    private final Lock rebuilding = new ReentrantLock();
+    private final Lock changing = new ReentrantLock();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("book-index-rebuild").daemon().factory());
+
+    private volatile BookIndex index = new BookIndex();
+    private volatile boolean built;
+    private List<Consumer<BookIndex>> pending;
+
+    public BookIndexService(BookService books, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.books = books;
+
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        searches = Timer.builder("books.index.searches")
+                .description("Searches of the in-memory index of books")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("books.index.size", this, s -> s.index.size())
+                .description("Books in the in-memory index")
+                .register(registry);
+        Gauge.builder("books.index.memory", this, s -> s.index.statistics().estimatedSize())
+                .description("Estimated heap footprint of the in-memory index of books")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Lets the app report ready without waiting for the scan of the table, see {@link #isBuilt()}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        rebuildInBackground();
+    }
+
+    /**
+     * @return whether the index has all the books, which it lacks until the first rebuild completes
+     */
+    public boolean isBuilt() {
+        return built;
+    }
+
+    public void rebuild() {
+        rebuilding.lock();
+
+        try {
+            changing.lock();
+            try {
+                pending = new ArrayList<>();
+            } finally {
+                changing.unlock();
+            }
+
+            BookIndex rebuilt = new BookIndex();
+            books.forEach(rebuilt::put);
+
+            changing.lock();
+            try {
+                pending.forEach(change -> change.accept(rebuilt));
+                pending = null;
+                index = rebuilt;
+                built = true;
+            } finally {
+                changing.unlock();
+            }
+        } finally {
+            rebuilding.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * @see BookIndex#search(SearchTerms, String, long, int)
+     */
+    public List<Book> search(SearchTerms terms, String category, long offset, int limit) {
+        return searches.record(() -> index.search(terms, category, offset, limit));
+    }
+
+    public BookIndex.Statistics statistics() {
+        return index.statistics();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChanged(BookChangedEvent event) {
+        Book book = event.book().toBuilder().build();
+
+        apply(index -> index.put(book));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeleted(BookDeletedEvent event) {
+        apply(index -> index.remove(event.id()));
+    }
+
+    /**
+     * The books of the index carry the name of their category, so a renamed category or a truncated table
+     * takes a rebuild. The other captured changes come as {@link BookChangedEvent} and {@link BookDeletedEvent}.
+     * <p>
+     * The rebuild scans the whole table, so it runs in the background rather than holding up the capture.
+     * A rebuild that has not started yet covers the changes captured meanwhile, so those queue no other one.
+     */
+    @EventListener
+    public void onCaptured(CapturedChanges captured) {
+        if (captured.changes().stream().anyMatch(BookIndexService::needsRebuild))
+            rebuildInBackground();
+    }
+
+    private void rebuildInBackground() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildQueued.set(false);
+
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to rebuild the book index", e);
+                }
+            });
+        }
+    }
+
+    private static boolean needsRebuild(RowChange change) {
+        return change.operation() == RowChange.Operation.TRUNCATE
+                || change.table().equals("categories") && change.operation() == RowChange.Operation.UPDATE;
+    }
+
+    private void apply(Consumer<BookIndex> change) {
+        changing.lock();
+
+        try {
+            change.accept(index);
+
+            if (pending != null)
+                pending.add(change);
+        } finally {
+            changing.unlock();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.hrashk.books.api.books.search;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from {@code long} to non-negative {@code int} without boxing.
+ * Linear probing, the removals shift the following entries back rather than leaving tombstones.
+ */
+final class LongIntMap {
+    static final int MISSING = -1;
+
+    private long[] keys;
+    /**
+     * The values plus one, so that zero marks a free slot.
+     */
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntMap() {
+        allocate(16);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(long key) {
+        for (int i = slot(key); values[i] != 0; i = (i + 1) & mask)
+            if (keys[i] == key)
+                return values[i] - 1;
+
+        return MISSING;
+    }
+
+    /**
+     * @return the previous value or {@link #MISSING}
+     */
+    int put(long key, int value) {
+        int i = slot(key);
+
+        for (; values[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                int previous = values[i] - 1;
+                values[i] = value + 1;
+                return previous;
+            }
+        }
+
+        keys[i] = key;
+        values[i] = value + 1;
+
+        if (++size > keys.length / 2)
+            rehash(keys.length * 2);
+
+        return MISSING;
+    }
+
+    /**
+     * @return the removed value or {@link #MISSING}
+     */
+    int remove(long key) {
+        int i = slot(key);
+
+        while (values[i] != 0 && keys[i] != key)
+            i = (i + 1) & mask;
+
+        if (values[i] == 0)
+            return MISSING;
+
+        int removed = values[i] - 1;
+
+        for (int j = (i + 1) & mask; values[j] != 0; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            boolean staysPut = i <= j ? i < home && home <= j : i < home || home <= j;
+
+            if (!staysPut) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+
+        values[i] = 0;
+        size--;
+
+        return removed;
+    }
+
+    void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    long estimatedBytes() {
+        return 2 * 16 + (long) keys.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == 0)
+                continue;
+
+            int j = slot(oldKeys[i]);
+            while (values[j] != 0)
+                j = (j + 1) & mask;
+
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+        }
+    }
+}
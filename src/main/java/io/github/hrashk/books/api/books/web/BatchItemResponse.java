@@ -0,0 +1,6 @@
+package io.github.hrashk.books.api.books.web;
+
+import io.github.hrashk.books.api.common.CrudResult;
+
+public record BatchItemResponse(CrudResult.Status status, BookResponse book) {
+}
@@ -0,0 +1,51 @@
+package io.github.hrashk.books.api.books.web;
+
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.books.SearchTerms;
+import io.github.hrashk.books.api.books.search.BookIndexService;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(value = "/api/v1/books/quick-search", produces = MediaType.APPLICATION_JSON_VALUE)
+@ConditionalOnProperty(name = "books-api.search-index.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class BookIndexController {
+    private final BookIndexService index;
+    private final BookMapper mapper;
+
+    @Operation(summary = "Search books by the word prefixes of their title and author without querying the database",
+            description = "Served from an in-memory index. Unlike the search endpoint, the matches come in the order"
+                    + " the books were indexed in rather than ranked, and typos are not tolerated."
+                    + " Answers 503 until the index is built after the startup.")
+    @GetMapping
+    public ResponseEntity<BookPageResponse> search(
+            @RequestParam @NotBlank @Size(max = 200) String q,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        if (!index.isBuilt())
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+
+        long offset = mapper.decodeOffset(after);
+        List<Book> books = index.search(SearchTerms.parse(q), category, offset, limit + 1);
+
+        BookPageResponse response = mapper.searchPage(books, offset, limit);
+
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.hrashk.books.api.books.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.github.hrashk.books.api.books.Book;
+
+import java.io.IOException;
+
+/**
+ * The books of a {@link BookListResponse} written in the same format straight from the entities,
+ * without the intermediate list of {@link BookResponse}.
+ * The generator writes into the response through the buffers Jackson recycles between the requests of a thread.
+ */
+@JsonSerialize(using = BookListing.Serializer.class)
+public record BookListing(Iterable<Book> books) {
+    static final class Serializer extends StdSerializer<BookListing> {
+        Serializer() {
+            super(BookListing.class);
+        }
+
+        @Override
+        public void serialize(BookListing listing, JsonGenerator json, SerializerProvider provider) throws IOException {
+            json.writeStartObject();
+            json.writeArrayFieldStart("books");
+
+            for (Book book : listing.books())
+                writeBook(book, json);
+
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+
+        /**
+         * Mirrors {@link BookMapper#map(Book)}.
+         */
+        private static void writeBook(Book book, JsonGenerator json) throws IOException {
+            json.writeStartObject();
+            writeNumberOrNull(json, "id", book.getId());
+            json.writeStringField("title", book.getTitle());
+            json.writeStringField("author", book.getAuthor());
+            json.writeStringField("category", book.getCategory() == null ? null : book.getCategory().getName());
+            json.writeEndObject();
+        }
+
+        private static void writeNumberOrNull(JsonGenerator json, String field, Long value) throws IOException {
+            if (value == null)
+                json.writeNullField(field);
+            else
+                json.writeNumberField(field, value);
+        }
+    }
+}
@@ -1,39 +1,95 @@
 package io.github.hrashk.books.api.books.web;
 
 import io.github.hrashk.books.api.books.Book;
-import io.github.hrashk.books.api.books.BookService;
 import io.github.hrashk.books.api.categories.Category;
 import io.github.hrashk.books.api.common.CrudResult;
+import jakarta.validation.ValidationException;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingConstants;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 
 @Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
 public abstract class BookMapper {
-    @Autowired
-    protected BookService service;
-
     @Mapping(target = "category", source = "category.name")
     public abstract BookResponse map(Book book);
 
     public abstract Category map(String name);
 
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     public abstract Book map(UpsertRequest request);
 
     public abstract List<BookResponse> map(List<Book> books);
 
+    public abstract List<Book> toBooks(List<UpsertRequest> requests);
+
+    @Mapping(target = "book", source = "entity")
+    public abstract BatchItemResponse toBatchItem(CrudResult<Book> result);
+
+    public abstract List<BatchItemResponse> toBatchItems(List<CrudResult<Book>> results);
+
     public BookListResponse wrap(List<Book> books) {
         return new BookListResponse(map(books));
     }
 
-    public ResponseEntity<BookResponse> map(CrudResult<Long> result) {
-        BookResponse response = map(service.findById(result.id()));
+    /**
+     * @param books up to {@code limit + 1} books, the extra one tells that there is a next page
+     */
+    public BookPageResponse page(List<Book> books, int limit) {
+        if (books.size() <= limit)
+            return new BookPageResponse(map(books), null);
+
+        List<Book> page = books.subList(0, limit);
+
+        return new BookPageResponse(map(page), encodeCursor(page.get(limit - 1).getId()));
+    }
+
+    /**
+     * Same as {@link #page(List, int)} for the ranked results: the cursor holds an offset rather than an id.
+     */
+    public BookPageResponse searchPage(List<Book> books, long offset, int limit) {
+        if (books.size() <= limit)
+            return new BookPageResponse(map(books), null);
+
+        return new BookPageResponse(map(books.subList(0, limit)), encodeCursor(offset + limit));
+    }
+
+    public String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(id.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public Long decodeCursor(String cursor) {
+        if (cursor == null)
+            return null;
+
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor " + cursor);
+        }
+    }
+
+    public long decodeOffset(String cursor) {
+        Long offset = decodeCursor(cursor);
+
+        if (offset == null)
+            return 0L;
+        if (offset < 0)
+            throw new ValidationException("Invalid cursor " + cursor);
+
+        return offset;
+    }
+
+    public ResponseEntity<BookResponse> map(CrudResult<Book> result) {
+        BookResponse response = map(result.entity());
 
         return switch (result.status()) {
             case UPDATED -> ResponseEntity.ok(response);
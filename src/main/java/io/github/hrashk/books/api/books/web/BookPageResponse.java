@@ -0,0 +1,9 @@
+package io.github.hrashk.books.api.books.web;
+
+import java.util.List;
+
+/**
+ * @param next an opaque cursor of the next page or {@code null} if this is the last one
+ */
+public record BookPageResponse(List<BookResponse> books, String next) {
+}
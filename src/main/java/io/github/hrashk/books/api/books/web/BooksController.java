@@ -1,17 +1,34 @@
 package io.github.hrashk.books.api.books.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.github.hrashk.books.api.books.Book;
 import io.github.hrashk.books.api.books.BookService;
+import io.github.hrashk.books.api.books.SearchTerms;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -20,40 +37,104 @@ import java.util.List;
 public class BooksController {
     private final BookService service;
     private final BookMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final RenderedResponseCache renderedResponses;
 
+    @Operation(summary = "List books page by page in the id order")
     @GetMapping
-    public ResponseEntity<BookListResponse> findAll() {
-        List<Book> books = service.findAll();
+    public ResponseEntity<BookPageResponse> findAll(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit) {
+        List<Book> books = service.findPage(mapper.decodeCursor(after), limit + 1);
 
-        BookListResponse response = mapper.wrap(books);
+        BookPageResponse response = mapper.page(books, limit);
 
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Stream all books as newline delimited json")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        ObjectWriter writer = objectMapper.writerFor(BookResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.createGenerator(out)) {
+                json.setRootValueSeparator(null);
+
+                service.forEach(book -> writeLine(writer, json, mapper.map(book)));
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @Operation(summary = "Search books by the words or word prefixes of their title and author",
+            description = "The best matches come first. Small typos are tolerated.")
+    @GetMapping("/search")
+    public ResponseEntity<BookPageResponse> search(
+            @RequestParam @NotBlank @Size(max = 200) String q,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        long offset = mapper.decodeOffset(after);
+        List<Book> books = service.search(SearchTerms.parse(q), offset, limit + 1);
+
+        BookPageResponse response = mapper.searchPage(books, offset, limit);
+
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "List the books of a category",
+            description = "Answers 304 to a request bearing the current ETag of the listing in If-None-Match.")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = BookListResponse.class)))
     @GetMapping("/by-category")
-    public ResponseEntity<BookListResponse> findByCategory(@RequestParam @NotBlank String category) {
+    public ResponseEntity<?> findByCategory(@RequestParam @NotBlank String category, WebRequest request) {
+        String eTag = Long.toHexString(service.categoryRevision(category));
+
+        if (request.checkNotModified(eTag))
+            return notModified(eTag);
+
+        if (renderedResponses.isEnabled())
+            return renderedResponses.respond(BookService.RENDERED_BOOKS_BY_CATEGORY, category,
+                    () -> new BookListing(service.findByCategory(category)), request, ResponseEntity.ok().eTag(eTag));
+
         List<Book> books = service.findByCategory(category);
 
-        BookListResponse response = mapper.wrap(books);
+        BookListing response = new BookListing(books);
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(eTag).body(response);
     }
 
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = BookResponse.class)))
     @GetMapping("/by-title-and-author")
-    public ResponseEntity<BookResponse> findByTitleAndAuthor(
-            @RequestParam @NotBlank String title, @RequestParam @NotBlank String author) {
-        Book book = service.findByTitleAndAuthor(title, author);
+    public ResponseEntity<?> findByTitleAndAuthor(
+            @RequestParam @NotBlank String title, @RequestParam @NotBlank String author, WebRequest request) {
+        if (renderedResponses.isEnabled())
+            return renderedResponses.respond(BookService.RENDERED_BOOK_BY_TITLE_AND_AUTHOR,
+                    new SimpleKey(title, author), () -> mapper.map(findByTitleAndAuthor(title, author)),
+                    request, ResponseEntity.ok());
+
+        Book book = findByTitleAndAuthor(title, author);
 
         BookResponse response = mapper.map(book);
 
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Get a book by id",
+            description = "Answers 304 to a request bearing the version of the book in If-None-Match"
+                    + " without reading the book, as long as the version is cached.")
     @GetMapping("/{id}")
-    public ResponseEntity<BookResponse> getById(@PathVariable Long id) {
-        BookResponse response = mapper.map(service.findById(id));
+    public ResponseEntity<BookResponse> getById(@PathVariable Long id, WebRequest request) {
+        Long version = service.cachedVersion(id);
 
-        return ResponseEntity.ok(response);
+        if (version != null && request.checkNotModified(version.toString()))
+            return notModified(version.toString());
+
+        Book book = service.findById(id);
+        BookResponse response = mapper.map(book);
+
+        return ResponseEntity.ok().eTag(book.getVersion().toString()).body(response);
     }
 
     @Operation(summary = "Add a new book")
@@ -70,6 +151,16 @@ public class BooksController {
         return mapper.map(result);
     }
 
+    @Operation(summary = "Add many books at once",
+            description = "Each book is handled as by the single add: the status is CREATED for a new book" +
+                    " and FOUND if a book with the same title and author was updated instead.")
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResponse>> addAll(
+            @RequestBody @NotEmpty @Size(max = 10_000) List<@Valid UpsertRequest> requests) {
+        var results = service.addAll(mapper.toBooks(requests));
+
+        return ResponseEntity.ok(mapper.toBatchItems(results));
+    }
 
     @Operation(summary = "Update a book")
     @ApiResponses(value = {
@@ -92,4 +183,22 @@ public class BooksController {
 
         return ResponseEntity.noContent().build();
     }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    private Book findByTitleAndAuthor(String title, String author) {
+        return service.findByTitleAndAuthor(title, author)
+                .orElseThrow(() -> BookService.notFound(title, author));
+    }
+
+    private static void writeLine(ObjectWriter writer, JsonGenerator json, BookResponse response) {
+        try {
+            writer.writeValue(json, response);
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
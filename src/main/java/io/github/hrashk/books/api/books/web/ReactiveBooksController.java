@@ -0,0 +1,50 @@
+package io.github.hrashk.books.api.books.web;
+
+import io.github.hrashk.books.api.books.ReactiveBookService;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non-blocking variant of the read endpoints of {@link BooksController}.
+ */
+@RestController
+@RequestMapping(value = "/api/v1/reactive/books", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+public class ReactiveBooksController {
+    private final ReactiveBookService service;
+    private final BookMapper mapper;
+
+    @Operation(summary = "List books page by page in the id order")
+    @GetMapping
+    public Mono<BookPageResponse> findAll(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit) {
+        return service.findPage(mapper.decodeCursor(after), limit + 1)
+                .collectList()
+                .map(books -> mapper.page(books, limit));
+    }
+
+    @Operation(summary = "Stream the books of a category as newline delimited json")
+    @GetMapping(value = "/by-category", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BookResponse> findByCategory(@RequestParam @NotBlank String category) {
+        return service.findByCategory(category).map(mapper::map);
+    }
+
+    @GetMapping("/by-title-and-author")
+    public Mono<BookResponse> findByTitleAndAuthor(
+            @RequestParam @NotBlank String title, @RequestParam @NotBlank String author) {
+        return service.findByTitleAndAuthor(title, author).map(mapper::map);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<BookResponse> getById(@PathVariable Long id) {
+        return service.findById(id).map(mapper::map);
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.hrashk.books.api.books.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.hrashk.books.api.books.BookService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the rendered JSON of the responses, so that a hit is written to the client as is,
+ * without deserializing, mapping and serializing the books again.
+ * <p>
+ * The entries share the keys of the caches of {@link BookService} they are rendered from
+ * and are evicted along with them, see {@link BookService#RENDERED_BOOKS_BY_CATEGORY}.
+ */
+@Component
+public class RenderedResponseCache {
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final boolean enabled;
+    private final boolean gzip;
+
+    public RenderedResponseCache(ObjectMapper objectMapper, CacheManager cacheManager,
+                                 @Value("${books-api.rendered-responses.enabled}") boolean enabled,
+                                 @Value("${books-api.rendered-responses.gzip}") boolean gzip) {
+        this.objectMapper = objectMapper;
+        this.cacheManager = cacheManager;
+        this.enabled = enabled;
+        this.gzip = gzip;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The compressed entries are sent compressed to the clients accepting gzip and inflated for the others.
+     *
+     * @param response renders the body on a miss
+     */
+    public ResponseEntity<byte[]> respond(String cacheName, Object key, Supplier<?> response,
+                                          WebRequest request, ResponseEntity.BodyBuilder builder) {
+        byte[] body = get(cacheName, key, response);
+
+        builder.contentType(MediaType.APPLICATION_JSON);
+
+        if (!gzip)
+            return builder.body(body);
+
+        builder.varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (acceptsGzip(request))
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body);
+
+        return builder.body(gunzip(body));
+    }
+
+    /**
+     * Lets the exceptions of the rendering through as they are, e.g. a missing book.
+     */
+    private byte[] get(String cacheName, Object key, Supplier<?> response) {
+        Cache cache = Objects.requireNonNull(cacheManager.getCache(cacheName), cacheName);
+
+        try {
+            return cache.get(key, () -> render(response.get()));
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    private byte[] render(Object response) throws IOException {
+        if (!gzip)
+            return objectMapper.writeValueAsBytes(response);
+
+        var bytes = new ByteArrayOutputStream();
+
+        try (var out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, response);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Whether gzip, or failing that the {@code *} wildcard, is among the accepted encodings with a non-zero weight.
+     */
+    private static boolean acceptsGzip(WebRequest request) {
+        String encodings = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+
+        if (encodings == null)
+            return false;
+
+        Double gzip = null;
+        Double any = null;
+
+        for (String encoding : encodings.split(",")) {
+            String[] parameters = encoding.split(";");
+            String name = parameters[0].trim();
+
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip"))
+                gzip = weight(parameters);
+            else if (name.equals("*"))
+                any = weight(parameters);
+        }
+
+        Double weight = gzip != null ? gzip : any;
+
+        return weight != null && weight > 0;
+    }
+
+    /**
+     * @return the {@code q} parameter, 1 when absent and 0 when malformed
+     */
+    private static double weight(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
+
+    private static byte[] gunzip(byte[] body) {
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
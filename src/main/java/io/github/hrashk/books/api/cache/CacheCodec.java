@@ -0,0 +1,29 @@
+package io.github.hrashk.books.api.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * The available formats of the values stored in Redis.
+ */
+public enum CacheCodec {
+    COMPACT {
+        @Override
+        public RedisSerializer<Object> serializer() {
+            return new CompactCacheSerializer();
+        }
+    },
+    JDK {
+        @Override
+        public RedisSerializer<Object> serializer() {
+            return RedisSerializer.java();
+        }
+    },
+    JSON {
+        @Override
+        public RedisSerializer<Object> serializer() {
+            return RedisSerializer.json();
+        }
+    };
+
+    public abstract RedisSerializer<Object> serializer();
+}
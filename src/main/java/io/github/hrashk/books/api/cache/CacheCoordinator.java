@@ -0,0 +1,41 @@
+package io.github.hrashk.books.api.cache;
+
+import java.time.Duration;
+
+/**
+ * Coordinates the nodes sharing the remote tier of a cache.
+ */
+public interface CacheCoordinator {
+    /**
+     * For a remote tier that is not shared: every lease is granted and the expiration is unknown.
+     */
+    CacheCoordinator LOCAL = new CacheCoordinator() {
+        @Override
+        public Duration expiresIn(Object key) {
+            return null;
+        }
+
+        @Override
+        public String tryLease(Object key, Duration duration) {
+            return "local";
+        }
+
+        @Override
+        public void release(Object key, String token) {
+        }
+    };
+
+    /**
+     * @return the remaining time to live of the remote entry or {@code null} if it is unknown
+     */
+    Duration expiresIn(Object key);
+
+    /**
+     * Tries to become the only node loading the value of the key.
+     *
+     * @return a token to release the lease with or {@code null} if another node holds it
+     */
+    String tryLease(Object key, Duration duration);
+
+    void release(Object key, String token);
+}
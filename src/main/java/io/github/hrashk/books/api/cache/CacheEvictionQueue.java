@@ -0,0 +1,245 @@
+package io.github.hrashk.books.api.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Evicts cache entries once the transaction that changed their source has committed,
+ * so that Redis is not waited for while the transaction holds its locks and a rolled back change evicts nothing.
+ * <p>
+ * The evictions of a transaction are coalesced: a key is evicted once, and clearing a cache supersedes
+ * the evictions of its keys. The remote entries of all the caches are deleted by a single {@code DEL},
+ * pipelined with a single invalidation message for the other nodes. Its time counts as a remote eviction
+ * of each of those caches.
+ * <p>
+ * A reader that missed the cache before the commit may still put the value it read from the database
+ * after the eviction. The evictions are therefore repeated after a delay longer than such a read takes.
+ * Outside a transaction the evictions happen right away, and are repeated as well.
+ * <p>
+ * The values known to be the latest once the transaction commits can be put in place of the evicted ones,
+ * see {@link #replace(String, Object, Supplier)}. The repetition only evicts them, as a later transaction
+ * may have changed them by then.
+ */
+@Slf4j
+public class CacheEvictionQueue implements AutoCloseable {
+    private final CacheManager cacheManager;
+    private final CacheInvalidationPublisher publisher;
+    private final Duration secondEvictionDelay;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("cache-second-eviction").daemon().factory());
+
+    /**
+     * @param secondEvictionDelay when to repeat the evictions, zero disables the repetition
+     */
+    public CacheEvictionQueue(CacheManager cacheManager, CacheInvalidationPublisher publisher,
+                              Duration secondEvictionDelay) {
+        this.cacheManager = cacheManager;
+        this.publisher = publisher;
+        this.secondEvictionDelay = secondEvictionDelay;
+    }
+
+    public void evict(String cacheName, Object key) {
+        Batch batch = currentBatch();
+        batch.evict(cacheName, key);
+        evictUnlessQueued(batch);
+    }
+
+    public void clear(String cacheName) {
+        Batch batch = currentBatch();
+        batch.clear(cacheName);
+        evictUnlessQueued(batch);
+    }
+
+    /**
+     * Evicts the entry along with the others and then puts the value. The readers that put what they read
+     * before the commit with {@link Cache#putIfAbsent(Object, Object)} therefore never replace it.
+     * The repeated eviction drops the value instead of putting it again, so that it never overwrites
+     * the value of a transaction committed in the meantime.
+     *
+     * @param value read when the evictions happen, i.e. after the commit
+     */
+    public void replace(String cacheName, Object key, Supplier<?> value) {
+        Batch batch = currentBatch();
+        batch.replace(cacheName, key, value);
+        evictUnlessQueued(batch);
+    }
+
+    /**
+     * Coalesces the evictions of the changes outside a transaction, e.g. of the changes captured from the database.
+     * Unlike the evictions after a commit, a failure of the first ones is thrown, so that the caller may retry
+     * the changes. The repeated evictions are still only logged.
+     */
+    public void inBatch(Runnable changes) {
+        Batch batch = new Batch(true);
+        TransactionSynchronizationManager.bindResource(this, batch);
+
+        try {
+            changes.run();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(this);
+        }
+
+        evictNow(batch, true);
+        evictLater(batch);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private Batch currentBatch() {
+        Batch batch = (Batch) TransactionSynchronizationManager.getResource(this);
+
+        if (batch != null)
+            return batch;
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return new Batch(false);
+
+        Batch queued = new Batch(true);
+        TransactionSynchronizationManager.bindResource(this, queued);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictTwice(queued);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CacheEvictionQueue.this);
+            }
+        });
+
+        return queued;
+    }
+
+    private void evictUnlessQueued(Batch batch) {
+        if (!batch.queued)
+            evictTwice(batch);
+    }
+
+    private void evictTwice(Batch batch) {
+        evictQuietly(batch, true);
+        evictLater(batch);
+    }
+
+    private void evictLater(Batch batch) {
+        if (!secondEvictionDelay.isZero())
+            scheduler.schedule(() -> evictQuietly(batch, false),
+                    secondEvictionDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The data is committed already, so a failure to evict is not reported to the caller.
+     * The stale entries live until they expire at worst.
+     */
+    private void evictQuietly(Batch batch, boolean replace) {
+        try {
+            evictNow(batch, replace);
+        } catch (RuntimeException e) {
+            log.warn("Failed to evict {}, to clear {} and to replace {}",
+                    batch.keys, batch.cleared, batch.replacements.keySet(), e);
+        }
+    }
+
+    /**
+     * @param replace whether to put the replacements after the evictions
+     */
+    private void evictNow(Batch batch, boolean replace) {
+        List<String> redisKeys = new ArrayList<>();
+        List<CacheInvalidation> invalidations = new ArrayList<>();
+        List<TwoTierCache> pipelined = new ArrayList<>();
+
+        batch.keys.forEach((cacheName, keys) -> {
+            Cache cache = cache(cacheName);
+
+            if (cache instanceof TwoTierCache twoTier
+                    && twoTier.getRemote() instanceof CoordinatedRedisCache remote) {
+                pipelined.add(twoTier);
+
+                for (Object key : keys) {
+                    twoTier.evictLocalCopy(key);
+                    redisKeys.add(remote.redisKey(key));
+                    invalidations.add(new CacheInvalidation(publisher.getOrigin(), cacheName, key));
+                }
+            } else {
+                keys.forEach(cache::evict);
+            }
+        });
+
+        long start = System.nanoTime();
+
+        try {
+            publisher.deleteAndPublish(redisKeys, invalidations);
+        } finally {
+            pipelined.forEach(twoTier -> twoTier.getStatistics().remoteEvictions().recordSince(start));
+        }
+
+        batch.cleared.forEach(cacheName -> cache(cacheName).clear());
+
+        if (replace)
+            batch.replacements.forEach((cacheName, values) -> {
+                Cache cache = cache(cacheName);
+                values.forEach((key, value) -> cache.put(key, value.get()));
+            });
+    }
+
+    private Cache cache(String name) {
+        return Objects.requireNonNull(cacheManager.getCache(name), name);
+    }
+
+    private static final class Batch {
+        private final boolean queued;
+        private final Map<String, Set<Object>> keys = new LinkedHashMap<>();
+        private final Set<String> cleared = new LinkedHashSet<>();
+        private final Map<String, Map<Object, Supplier<?>>> replacements = new LinkedHashMap<>();
+
+        Batch(boolean queued) {
+            this.queued = queued;
+        }
+
+        /**
+         * Also drops the value queued for the key by an earlier {@link #replace(String, Object, Supplier)}.
+         */
+        void evict(String cacheName, Object key) {
+            if (!cleared.contains(cacheName))
+                keys.computeIfAbsent(cacheName, name -> new LinkedHashSet<>()).add(key);
+
+            Map<Object, Supplier<?>> values = replacements.get(cacheName);
+
+            if (values != null)
+                values.remove(key);
+        }
+
+        void clear(String cacheName) {
+            cleared.add(cacheName);
+            keys.remove(cacheName);
+            replacements.remove(cacheName);
+        }
+
+        /**
+         * The values are put after the clearing, so only a later {@link #clear(String)} drops them.
+         */
+        void replace(String cacheName, Object key, Supplier<?> value) {
+            evict(cacheName, key);
+            replacements.computeIfAbsent(cacheName, name -> new LinkedHashMap<>()).put(key, value);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.hrashk.books.api.cache;
+
+import java.io.Serializable;
+
+/**
+ * A message telling the other nodes to drop their local copy of a cache entry.
+ *
+ * @param origin    the node that performed the eviction
+ * @param cacheName the name of the cache
+ * @param key       the evicted key or {@code null} if the whole cache was cleared
+ */
+public record CacheInvalidation(String origin, String cacheName, Object key) implements Serializable {
+}
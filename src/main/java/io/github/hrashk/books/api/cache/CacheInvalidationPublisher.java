@@ -0,0 +1,49 @@
+package io.github.hrashk.books.api.cache;
+
+import lombok.Getter;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class CacheInvalidationPublisher {
+    private final RedisTemplate<String, Object> template;
+    private final String channel;
+    @Getter
+    private final String origin = UUID.randomUUID().toString();
+
+    public CacheInvalidationPublisher(RedisTemplate<String, Object> template, String channel) {
+        this.template = template;
+        this.channel = channel;
+    }
+
+    public void publish(String cacheName, Object key) {
+        template.convertAndSend(channel, new CacheInvalidation(origin, cacheName, key));
+    }
+
+    /**
+     * Deletes the remote entries and tells the other nodes to drop their copies in a single round trip.
+     *
+     * @param invalidations sent as a single message
+     */
+    @SuppressWarnings("unchecked")
+    public void deleteAndPublish(List<String> redisKeys, List<CacheInvalidation> invalidations) {
+        if (redisKeys.isEmpty() && invalidations.isEmpty())
+            return;
+
+        var keySerializer = (RedisSerializer<String>) template.getKeySerializer();
+        var valueSerializer = (RedisSerializer<Object>) template.getValueSerializer();
+        byte[][] keys = redisKeys.stream().map(keySerializer::serialize).toArray(byte[][]::new);
+        byte[] message = valueSerializer.serialize(new ArrayList<>(invalidations));
+
+        template.executePipelined((RedisCallback<Object>) connection -> {
+            if (keys.length > 0)
+                connection.keyCommands().del(keys);
+            connection.publish(keySerializer.serialize(channel), message);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.hrashk.books.api.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Policies of the individual caches, keyed by cache name.
+ */
+@ConfigurationProperties("books-api.cache")
+public record CacheProperties(Map<String, Spec> specs) {
+    public CacheProperties {
+        specs = specs == null ? Map.of() : Map.copyOf(specs);
+    }
+
+    /**
+     * @param timeToLive  how long an entry lives in Redis
+     * @param keyPrefix   the prefix of the Redis keys of the cache
+     * @param maximumSize how many entries a node keeps locally. Redis evicts entries only by its global
+     *                    {@code maxmemory-policy}, so the remote tier is bounded by the time to live.
+     * @param missingTimeToLive how long a cached {@code null}, e.g. a lookup that found nothing, lives in Redis.
+     *                    The time to live of the cache when not set.
+     */
+    public record Spec(Duration timeToLive, String keyPrefix, long maximumSize, Duration missingTimeToLive) {
+        /**
+         * @param value the value put into the cache, {@code null} or {@link NullValue} for a miss
+         */
+        public Duration timeToLive(Object value) {
+            return missingTimeToLive != null && (value == null || value instanceof NullValue)
+                    ? missingTimeToLive : timeToLive;
+        }
+    }
+}
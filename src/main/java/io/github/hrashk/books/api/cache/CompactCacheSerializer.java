@@ -0,0 +1,292 @@
+package io.github.hrashk.books.api.cache;
+
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.categories.Category;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A schema-aware binary format for the cached books and categories.
+ * <p>
+ * A payload is laid out as
+ * <pre>
+ * format | type | string count | strings... | records...
+ * </pre>
+ * All the numbers are unsigned varints and all the strings are stored once in the string table,
+ * so the repeated category names of a book list cost a single byte per book.
+ * Byte arrays, like the rendered responses, are stored as they are.
+ * Any other value is delegated to the fallback serializer.
+ * <p>
+ * The values written in another version of the format are read as misses, so that the nodes running
+ * different versions during a deployment reload them rather than fail.
+ */
+public class CompactCacheSerializer implements RedisSerializer<Object> {
+    private static final byte FORMAT = 2;
+
+    private static final byte FALLBACK = 0;
+    private static final byte BOOK = 1;
+    private static final byte CATEGORY = 2;
+    private static final byte BOOK_LIST = 3;
+    private static final byte CATEGORY_LIST = 4;
+    private static final byte EMPTY_LIST = 5;
+    private static final byte BYTES = 6;
+
+    private final RedisSerializer<Object> fallback;
+
+    public CompactCacheSerializer() {
+        this(RedisSerializer.java());
+    }
+
+    public CompactCacheSerializer(RedisSerializer<Object> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null)
+            return new byte[0];
+
+        var encoder = new Encoder();
+
+        if (value instanceof Book book) {
+            encoder.writeBook(book);
+            return encoder.toByteArray(BOOK);
+        } else if (value instanceof Category category) {
+            encoder.writeCategory(category);
+            return encoder.toByteArray(CATEGORY);
+        } else if (value instanceof List<?> list && list.isEmpty()) {
+            return encoder.toByteArray(EMPTY_LIST);
+        } else if (value instanceof List<?> list && allInstancesOf(list, Book.class)) {
+            encoder.writeVarLong(list.size());
+            list.forEach(b -> encoder.writeBook((Book) b));
+            return encoder.toByteArray(BOOK_LIST);
+        } else if (value instanceof List<?> list && allInstancesOf(list, Category.class)) {
+            encoder.writeVarLong(list.size());
+            list.forEach(c -> encoder.writeCategory((Category) c));
+            return encoder.toByteArray(CATEGORY_LIST);
+        }
+
+        if (value instanceof byte[] raw)
+            return withHeader(BYTES, raw);
+
+        return withHeader(FALLBACK, fallback.serialize(value));
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0)
+            return null;
+
+        if (bytes[0] != FORMAT)
+            return null;
+
+        byte type = bytes[1];
+
+        if (type == FALLBACK)
+            return fallback.deserialize(Arrays.copyOfRange(bytes, 2, bytes.length));
+
+        if (type == BYTES)
+            return Arrays.copyOfRange(bytes, 2, bytes.length);
+
+        var decoder = new Decoder(bytes);
+
+        return switch (type) {
+            case BOOK -> decoder.readBook();
+            case CATEGORY -> decoder.readCategory();
+            case EMPTY_LIST -> new ArrayList<>();
+            case BOOK_LIST -> decoder.readList(decoder::readBook);
+            case CATEGORY_LIST -> decoder.readList(decoder::readCategory);
+            default -> throw new SerializationException("Unknown cache value type " + type);
+        };
+    }
+
+    private static byte[] withHeader(byte type, byte[] payload) {
+        byte[] bytes = new byte[payload.length + 2];
+        bytes[0] = FORMAT;
+        bytes[1] = type;
+        System.arraycopy(payload, 0, bytes, 2, payload.length);
+
+        return bytes;
+    }
+
+    private static boolean allInstancesOf(List<?> list, Class<?> type) {
+        return list.stream().allMatch(type::isInstance);
+    }
+
+    private static final class Encoder {
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final Buffer records = new Buffer(256);
+
+        void writeBook(Book book) {
+            writeNullableLong(book.getId());
+            writeString(book.getTitle());
+            writeString(book.getAuthor());
+            writeNullableLong(book.getVersion());
+
+            if (book.getCategory() == null) {
+                records.write(0);
+            } else {
+                records.write(1);
+                writeCategory(book.getCategory());
+            }
+        }
+
+        void writeCategory(Category category) {
+            writeNullableLong(category.getId());
+            writeString(category.getName());
+        }
+
+        /**
+         * Strings are written as 1-based indices into the string table, 0 stands for null.
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+
+            int index = strings.computeIfAbsent(value, s -> strings.size());
+            writeVarLong(index + 1L);
+        }
+
+        void writeNullableLong(Long value) {
+            writeVarLong(value == null ? 0 : value + 1);
+        }
+
+        void writeVarLong(long value) {
+            records.writeVarLong(value);
+        }
+
+        byte[] toByteArray(byte type) {
+            var out = new Buffer(records.size + 16 * strings.size() + 8);
+            out.write(FORMAT);
+            out.write(type);
+
+            out.writeVarLong(strings.size());
+            for (String s : strings.keySet()) {
+                byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                out.writeVarLong(utf8.length);
+                out.write(utf8, utf8.length);
+            }
+
+            out.write(records.bytes, records.size);
+            return Arrays.copyOf(out.bytes, out.size);
+        }
+    }
+
+    /**
+     * An unsynchronized replacement for {@link java.io.ByteArrayOutputStream}.
+     */
+    private static final class Buffer {
+        private byte[] bytes;
+        private int size;
+
+        Buffer(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void write(int b) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] src, int length) {
+            ensureCapacity(length);
+            System.arraycopy(src, 0, bytes, size, length);
+            size += length;
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+
+    private static final class Decoder {
+        private final byte[] bytes;
+        private final String[] strings;
+        private int position = 2;
+
+        Decoder(byte[] bytes) {
+            this.bytes = bytes;
+            this.strings = new String[(int) readVarLong()];
+
+            for (int i = 0; i < strings.length; i++) {
+                int length = (int) readVarLong();
+                strings[i] = new String(bytes, position, length, StandardCharsets.UTF_8);
+                position += length;
+            }
+        }
+
+        Book readBook() {
+            Long id = readNullableLong();
+            String title = readString();
+            String author = readString();
+            Long version = readNullableLong();
+            Category category = bytes[position++] == 0 ? null : readCategory();
+
+            return new Book(id, title, author, category, version);
+        }
+
+        Category readCategory() {
+            Long id = readNullableLong();
+            String name = readString();
+
+            return new Category(id, name);
+        }
+
+        <T> List<T> readList(Supplier<T> reader) {
+            int size = (int) readVarLong();
+            List<T> list = new ArrayList<>(size);
+
+            for (int i = 0; i < size; i++)
+                list.add(reader.get());
+
+            return list;
+        }
+
+        String readString() {
+            int index = (int) readVarLong();
+
+            return index == 0 ? null : strings[index - 1];
+        }
+
+        Long readNullableLong() {
+            long value = readVarLong();
+
+            return value == 0 ? null : value - 1;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+
+            do {
+                b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            return value;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.hrashk.books.api.cache;
+
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Redis cache that also serves as a {@link CacheCoordinator}. A lease is a short-lived key next to the entry.
+ */
+public class CoordinatedRedisCache extends RedisCache implements CacheCoordinator {
+    private static final RedisScript<Long> RELEASE = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redis;
+
+    protected CoordinatedRedisCache(String name, RedisCacheWriter cacheWriter,
+                                    RedisCacheConfiguration cacheConfiguration, StringRedisTemplate redis) {
+        super(name, cacheWriter, cacheConfiguration);
+        this.redis = redis;
+    }
+
+    @Override
+    public Duration expiresIn(Object key) {
+        Long millis = redis.getExpire(createCacheKey(key), TimeUnit.MILLISECONDS);
+
+        return millis == null || millis < 0 ? null : Duration.ofMillis(millis);
+    }
+
+    @Override
+    public String tryLease(Object key, Duration duration) {
+        String token = UUID.randomUUID().toString();
+
+        return Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(leaseKey(key), token, duration)) ? token : null;
+    }
+
+    @Override
+    public void release(Object key, String token) {
+        redis.execute(RELEASE, List.of(leaseKey(key)), token);
+    }
+
+    /**
+     * @return the Redis key of the entry, prefix included
+     */
+    public String redisKey(Object key) {
+        return createCacheKey(key);
+    }
+
+    private String leaseKey(Object key) {
+        return "lease:" + createCacheKey(key);
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.hrashk.books.api.cache;
+
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Map;
+
+/**
+ * Creates {@link CoordinatedRedisCache}s. The cache writer does not lock: leases are taken per key instead.
+ * It clears a cache by scanning for its keys, as {@code KEYS} would block Redis on a large key space.
+ */
+public class CoordinatedRedisCacheManager extends RedisCacheManager {
+    private static final int CLEAR_BATCH_SIZE = 1000;
+
+    private final StringRedisTemplate redis;
+
+    public CoordinatedRedisCacheManager(RedisConnectionFactory connectionFactory, RedisCacheConfiguration defaults,
+                                        Map<String, RedisCacheConfiguration> configurations) {
+        super(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory, BatchStrategies.scan(CLEAR_BATCH_SIZE)),
+                defaults, configurations);
+        this.redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @Override
+    protected RedisCache createRedisCache(String name, RedisCacheConfiguration cacheConfiguration) {
+        return new CoordinatedRedisCache(name, getCacheWriter(),
+                cacheConfiguration != null ? cacheConfiguration : getDefaultCacheConfiguration(), redis);
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.hrashk.books.api.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Non-blocking access to the Redis tier of a cache. It uses the keys, the value encoding and the time to live
+ * of the blocking cache, so both share the entries and the evictions of one are seen by the other.
+ * There is no local tier: the invalidation messages are meant for the local copies only.
+ * <p>
+ * A {@code null} is stored the way {@link org.springframework.data.redis.cache.RedisCache} stores it
+ * and read back as {@link NullValue}.
+ */
+public class ReactiveCache {
+    private static final byte[] BINARY_NULL_VALUE = RedisSerializer.java().serialize(NullValue.INSTANCE);
+
+    private final CoordinatedRedisCache cache;
+    private final RedisCacheConfiguration configuration;
+    private final ReactiveRedisTemplate<byte[], byte[]> redis;
+
+    private ReactiveCache(CoordinatedRedisCache cache, ReactiveRedisTemplate<byte[], byte[]> redis) {
+        this.cache = cache;
+        this.configuration = cache.getCacheConfiguration();
+        this.redis = redis;
+    }
+
+    /**
+     * @param cache a {@link TwoTierCache} or a {@link CoordinatedRedisCache}
+     */
+    public static ReactiveCache of(Cache cache, ReactiveRedisTemplate<byte[], byte[]> redis) {
+        Cache remote = cache instanceof TwoTierCache twoTier ? twoTier.getRemote() : cache;
+
+        if (!(remote instanceof CoordinatedRedisCache redisCache))
+            throw new IllegalArgumentException("Cache %s is not backed by Redis".formatted(cache.getName()));
+
+        return new ReactiveCache(redisCache, redis);
+    }
+
+    public Mono<Object> get(Object key) {
+        return redis.opsForValue().get(redisKey(key))
+                .map(bytes -> Arrays.equals(bytes, BINARY_NULL_VALUE)
+                        ? NullValue.INSTANCE
+                        : configuration.getValueSerializationPair().read(ByteBuffer.wrap(bytes)));
+    }
+
+    public Mono<Boolean> put(Object key, Object value) {
+        byte[] bytes = value == null
+                ? BINARY_NULL_VALUE
+                : ByteUtils.getBytes(configuration.getValueSerializationPair().write(value));
+        Duration ttl = configuration.getTtlFunction().getTimeToLive(key, value);
+
+        return ttl.isZero() || ttl.isNegative()
+                ? redis.opsForValue().set(redisKey(key), bytes)
+                : redis.opsForValue().set(redisKey(key), bytes, ttl);
+    }
+
+    private byte[] redisKey(Object key) {
+        return ByteUtils.getBytes(configuration.getKeySerializationPair().write(cache.redisKey(key)));
+    }
+}
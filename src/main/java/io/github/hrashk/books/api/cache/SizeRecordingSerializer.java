@@ -0,0 +1,33 @@
+package io.github.hrashk.books.api.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Records the size of every value written to Redis.
+ */
+public class SizeRecordingSerializer implements RedisSerializer<Object> {
+    private final RedisSerializer<Object> delegate;
+    private final DistributionSummary sizes;
+
+    public SizeRecordingSerializer(RedisSerializer<Object> delegate, DistributionSummary sizes) {
+        this.delegate = delegate;
+        this.sizes = sizes;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] bytes = delegate.serialize(value);
+
+        if (bytes != null)
+            sizes.record(bytes.length);
+
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        return delegate.deserialize(bytes);
+    }
+}
@@ -0,0 +1,476 @@
+package io.github.hrashk.books.api.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A near cache: a bounded in-process tier in front of a shared remote tier.
+ * Reads are served locally whenever possible, writes go to both tiers,
+ * and evictions are broadcast so that the local copies on other nodes are dropped as well.
+ * <p>
+ * {@link #get(Object, Callable)} also protects the source of the values from stampedes:
+ * <ul>
+ * <li>a key is loaded by a single thread of a node, the others wait for its result;</li>
+ * <li>a key is loaded by a single node at a time, the others poll the remote tier while the lease lasts;</li>
+ * <li>an entry is reloaded in the background a bit before it expires remotely, with a probability growing
+ * as the expiration approaches (the XFetch algorithm), while all the readers keep getting the current value.</li>
+ * </ul>
+ */
+@Slf4j
+public class TwoTierCache extends AbstractValueAdaptingCache {
+    private static final long UNKNOWN = Long.MAX_VALUE;
+    private static final long MAX_POLL_PAUSE = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, LocalEntry> local;
+    private final Cache remote;
+    private final CacheCoordinator coordinator;
+    private final CacheInvalidationPublisher publisher;
+    private final Duration leaseTime;
+    private final double earlyRefreshBeta;
+    private final Executor refresher;
+
+    private final ConcurrentMap<Object, CompletableFuture<LocalEntry>> loading = new ConcurrentHashMap<>();
+    private final Statistics statistics = new Statistics();
+    private final AtomicLong averageLoadNanos = new AtomicLong();
+
+    /**
+     * @param refresher runs the early refreshes, so that the reader who triggers one does not wait for it
+     */
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, LocalEntry> local,
+                        Cache remote, CacheCoordinator coordinator, CacheInvalidationPublisher publisher,
+                        Duration leaseTime, double earlyRefreshBeta, Executor refresher) {
+        super(true);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.coordinator = coordinator;
+        this.publisher = publisher;
+        this.leaseTime = leaseTime;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.refresher = refresher;
+    }
+
+    /**
+     * @param expiresAt when the remote copy expires in terms of {@link System#nanoTime()}
+     */
+    public record LocalEntry(Object value, long expiresAt) {
+    }
+
+    /**
+     * Counters for the metrics. A hit is a value found in either tier.
+     */
+    public final class Statistics {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder puts = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder loads = new LongAdder();
+        private final LongAdder loadNanos = new LongAdder();
+        private final Latency remoteGets = new Latency();
+        private final Latency remotePuts = new Latency();
+        private final Latency remoteEvictions = new Latency();
+
+        public long hits() {
+            return hits.sum();
+        }
+
+        public long misses() {
+            return misses.sum();
+        }
+
+        public long puts() {
+            return puts.sum();
+        }
+
+        /**
+         * Explicit evictions plus the entries dropped from the local tier to respect its maximum size.
+         */
+        public long evictions() {
+            return evictions.sum() + local.stats().evictionCount();
+        }
+
+        public long loads() {
+            return loads.sum();
+        }
+
+        public double loadNanos() {
+            return loadNanos.sum();
+        }
+
+        public long localSize() {
+            return local.estimatedSize();
+        }
+
+        public Latency remoteGets() {
+            return remoteGets;
+        }
+
+        public Latency remotePuts() {
+            return remotePuts;
+        }
+
+        /**
+         * The evictions of single keys and the clearing of the whole cache. A batch of
+         * {@link CacheEvictionQueue} counts as a single eviction of each of its caches.
+         */
+        public Latency remoteEvictions() {
+            return remoteEvictions;
+        }
+    }
+
+    /**
+     * The count and total time of the calls to the remote tier.
+     */
+    public static final class Latency {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        public long calls() {
+            return calls.sum();
+        }
+
+        public double nanos() {
+            return nanos.sum();
+        }
+
+        void recordSince(long start) {
+            calls.increment();
+            nanos.add(System.nanoTime() - start);
+        }
+    }
+
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public Cache getRemote() {
+        return remote;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        LocalEntry entry = local.getIfPresent(key);
+
+        if (entry != null) {
+            statistics.hits.increment();
+            return entry.value();
+        }
+
+        ValueWrapper wrapper = remoteGet(key);
+
+        if (wrapper == null) {
+            statistics.misses.increment();
+            return null;
+        }
+
+        statistics.hits.increment();
+        Object value = toStoreValue(wrapper.get());
+        local.put(key, new LocalEntry(value, UNKNOWN));
+
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        LocalEntry entry = local.getIfPresent(key);
+
+        if (entry != null) {
+            statistics.hits.increment();
+
+            if (shouldRefreshEarly(entry))
+                refreshInBackground(key, entry, valueLoader);
+
+            return (T) fromStoreValue(entry.value());
+        }
+
+        var mine = new CompletableFuture<LocalEntry>();
+        var theirs = loading.putIfAbsent(key, mine);
+
+        if (theirs != null) {
+            statistics.hits.increment();
+            return (T) fromStoreValue(await(theirs).value());
+        }
+
+        try {
+            LocalEntry loaded = load(key, valueLoader);
+            local.put(key, loaded);
+            mine.complete(loaded);
+
+            return (T) fromStoreValue(loaded.value());
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        statistics.puts.increment();
+        remotePut(key, value);
+        local.put(key, new LocalEntry(toStoreValue(value), UNKNOWN));
+    }
+
+    /**
+     * Atomic as far as the remote tier is: the local copy becomes whatever the remote tier holds afterwards.
+     */
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        long start = System.nanoTime();
+        ValueWrapper existing;
+
+        try {
+            existing = remote.putIfAbsent(key, value);
+        } finally {
+            statistics.remotePuts.recordSince(start);
+        }
+
+        if (existing == null)
+            statistics.puts.increment();
+
+        local.put(key, new LocalEntry(toStoreValue(existing == null ? value : existing.get()), UNKNOWN));
+
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        statistics.evictions.increment();
+        long start = System.nanoTime();
+
+        try {
+            remote.evict(key);
+        } finally {
+            statistics.remoteEvictions.recordSince(start);
+        }
+
+        local.invalidate(key);
+        publisher.publish(name, key);
+    }
+
+    @Override
+    public void clear() {
+        long start = System.nanoTime();
+
+        try {
+            remote.clear();
+        } finally {
+            statistics.remoteEvictions.recordSince(start);
+        }
+
+        local.invalidateAll();
+        publisher.publish(name, null);
+    }
+
+    /**
+     * Counts an eviction and drops the local copy, the remote one and those of the other nodes are left
+     * to {@link CacheEvictionQueue}, which evicts them in bulk.
+     */
+    void evictLocalCopy(Object key) {
+        statistics.evictions.increment();
+        local.invalidate(key);
+    }
+
+    /**
+     * Drops the local copy only. Used when another node reports an eviction.
+     */
+    void evictLocal(Object key) {
+        if (key == null)
+            local.invalidateAll();
+        else
+            local.invalidate(key);
+    }
+
+    /**
+     * XFetch: refresh when {@code now - delta * beta * ln(random) >= expiry}, delta being the time a load takes.
+     */
+    private boolean shouldRefreshEarly(LocalEntry entry) {
+        if (entry.expiresAt() == UNKNOWN || earlyRefreshBeta <= 0)
+            return false;
+
+        double gap = -averageLoadNanos.get() * earlyRefreshBeta * Math.log(ThreadLocalRandom.current().nextDouble());
+
+        return entry.expiresAt() - System.nanoTime() <= gap;
+    }
+
+    private LocalEntry load(Object key, Callable<?> valueLoader) {
+        ValueWrapper cached = remoteGet(key);
+
+        if (cached != null) {
+            statistics.hits.increment();
+            return remoteEntry(key, cached.get());
+        }
+
+        statistics.misses.increment();
+        String token = coordinator.tryLease(key, leaseTime);
+
+        if (token == null) {
+            LocalEntry loadedElsewhere = awaitRemote(key);
+
+            if (loadedElsewhere != null)
+                return loadedElsewhere;
+        }
+
+        try {
+            return loadFromSource(key, valueLoader);
+        } finally {
+            if (token != null)
+                coordinator.release(key, token);
+        }
+    }
+
+    /**
+     * Hands the reload to {@link #refresher} unless the key is being loaded already. The readers that miss
+     * the local tier meanwhile wait for the reload like for any other load, and get the current value
+     * if it fails.
+     */
+    private void refreshInBackground(Object key, LocalEntry current, Callable<?> valueLoader) {
+        var mine = new CompletableFuture<LocalEntry>();
+
+        if (loading.putIfAbsent(key, mine) != null)
+            return;
+
+        try {
+            refresher.execute(() -> {
+                try {
+                    LocalEntry loaded = reload(key, current, valueLoader);
+                    local.put(key, loaded);
+                    mine.complete(loaded);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to refresh {} in {}", key, name, e);
+                    mine.complete(current);
+                } finally {
+                    loading.remove(key, mine);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the current value stays, the next reader will try again
+            mine.complete(current);
+            loading.remove(key, mine);
+        }
+    }
+
+    /**
+     * Only one node refreshes an entry early, the others keep their current value
+     * until it expires locally and pick up the refreshed one from the remote tier.
+     */
+    private LocalEntry reload(Object key, LocalEntry current, Callable<?> valueLoader) {
+        String token = coordinator.tryLease(key, leaseTime);
+
+        if (token == null)
+            return new LocalEntry(current.value(), UNKNOWN);
+
+        try {
+            return loadFromSource(key, valueLoader);
+        } finally {
+            coordinator.release(key, token);
+        }
+    }
+
+    private LocalEntry awaitRemote(Object key) {
+        long deadline = System.nanoTime() + leaseTime.toNanos();
+        long pause = TimeUnit.MILLISECONDS.toNanos(10);
+
+        while (System.nanoTime() < deadline) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(pause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            pause = Math.min(pause * 2, MAX_POLL_PAUSE);
+
+            ValueWrapper cached = remoteGet(key);
+
+            if (cached != null)
+                return remoteEntry(key, cached.get());
+        }
+
+        return null;
+    }
+
+    private LocalEntry loadFromSource(Object key, Callable<?> valueLoader) {
+        long start = System.nanoTime();
+        Object value;
+
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        averageLoadNanos.accumulateAndGet(elapsed, (average, sample) -> average + (sample - average) / 8);
+        statistics.loads.increment();
+        statistics.loadNanos.add(elapsed);
+
+        remotePut(key, value);
+        statistics.puts.increment();
+
+        return remoteEntry(key, value);
+    }
+
+    private ValueWrapper remoteGet(Object key) {
+        long start = System.nanoTime();
+
+        try {
+            return remote.get(key);
+        } finally {
+            statistics.remoteGets.recordSince(start);
+        }
+    }
+
+    private void remotePut(Object key, Object value) {
+        long start = System.nanoTime();
+
+        try {
+            remote.put(key, value);
+        } finally {
+            statistics.remotePuts.recordSince(start);
+        }
+    }
+
+    private LocalEntry remoteEntry(Object key, Object value) {
+        Duration expiresIn = coordinator.expiresIn(key);
+        long expiresAt = expiresIn == null ? UNKNOWN : System.nanoTime() + expiresIn.toNanos();
+
+        return new LocalEntry(toStoreValue(value), expiresAt);
+    }
+
+    private static LocalEntry await(CompletableFuture<LocalEntry> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+}
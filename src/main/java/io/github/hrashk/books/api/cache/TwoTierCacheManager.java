@@ -0,0 +1,90 @@
+package io.github.hrashk.books.api.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Wraps every cache of the remote manager into a {@link TwoTierCache}.
+ * It also listens to the invalidation channel to keep the local tier in sync with the other nodes.
+ */
+public class TwoTierCacheManager extends AbstractCacheManager implements MessageListener {
+    private final CacheManager remote;
+    private final Function<String, Caffeine<Object, Object>> localSpecs;
+    private final CacheInvalidationPublisher publisher;
+    private final Duration leaseTime;
+    private final double earlyRefreshBeta;
+    private final Executor refresher;
+    private final RedisSerializer<Object> serializer = RedisSerializer.java();
+
+    /**
+     * @param localSpecs the local tier settings by cache name
+     * @param refresher runs the early refreshes of all the caches
+     */
+    public TwoTierCacheManager(CacheManager remote, Function<String, Caffeine<Object, Object>> localSpecs,
+                               CacheInvalidationPublisher publisher, Duration leaseTime, double earlyRefreshBeta,
+                               Executor refresher) {
+        this.remote = remote;
+        this.localSpecs = localSpecs;
+        this.publisher = publisher;
+        this.leaseTime = leaseTime;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.refresher = refresher;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return remote.getCacheNames().stream()
+                .map(this::getMissingCache)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache remoteCache = remote.getCache(name);
+
+        if (remoteCache == null)
+            return null;
+
+        CacheCoordinator coordinator = remoteCache instanceof CacheCoordinator c ? c : CacheCoordinator.LOCAL;
+
+        return new TwoTierCache(name, localSpecs.apply(name).build(), remoteCache, coordinator, publisher,
+                leaseTime, earlyRefreshBeta, refresher);
+    }
+
+    /**
+     * Handles a single {@link CacheInvalidation} or a list of them.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = serializer.deserialize(message.getBody());
+
+        if (body instanceof List<?> invalidations)
+            invalidations.forEach(this::invalidate);
+        else
+            invalidate(body);
+    }
+
+    private void invalidate(Object message) {
+        if (!(message instanceof CacheInvalidation invalidation))
+            return;
+
+        if (Objects.equals(invalidation.origin(), publisher.getOrigin()))
+            return;
+
+        if (lookupCache(invalidation.cacheName()) instanceof TwoTierCache cache)
+            cache.evictLocal(invalidation.key());
+    }
+}
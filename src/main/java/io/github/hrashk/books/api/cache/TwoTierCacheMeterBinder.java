@@ -0,0 +1,68 @@
+package io.github.hrashk.books.api.cache;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the standard {@code cache.*} meters of a {@link TwoTierCache}
+ * plus {@code cache.loads}, the count and total time of the loads from the source,
+ * and {@code cache.remote.calls}, those of the calls to Redis by operation.
+ */
+public class TwoTierCacheMeterBinder extends CacheMeterBinder<TwoTierCache> {
+    private final TwoTierCache.Statistics statistics;
+
+    public TwoTierCacheMeterBinder(TwoTierCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+        this.statistics = cache.getStatistics();
+    }
+
+    @Override
+    protected Long size() {
+        return statistics.localSize();
+    }
+
+    @Override
+    protected long hitCount() {
+        return statistics.hits();
+    }
+
+    @Override
+    protected Long missCount() {
+        return statistics.misses();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return statistics.evictions();
+    }
+
+    @Override
+    protected long putCount() {
+        return statistics.puts();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        FunctionTimer.builder("cache.loads", statistics,
+                        TwoTierCache.Statistics::loads, TwoTierCache.Statistics::loadNanos, TimeUnit.NANOSECONDS)
+                .tags(getTagsWithCacheName())
+                .description("Loads of missing or expiring entries from the source")
+                .register(registry);
+        bindRemoteCalls(registry, "get", statistics.remoteGets());
+        bindRemoteCalls(registry, "put", statistics.remotePuts());
+        bindRemoteCalls(registry, "evict", statistics.remoteEvictions());
+    }
+
+    private void bindRemoteCalls(MeterRegistry registry, String operation, TwoTierCache.Latency latency) {
+        FunctionTimer.builder("cache.remote.calls", latency,
+                        TwoTierCache.Latency::calls, TwoTierCache.Latency::nanos, TimeUnit.NANOSECONDS)
+                .tags(getTagsWithCacheName())
+                .tag("operation", operation)
+                .description("Calls to the remote tier")
+                .register(registry);
+    }
+}
@@ -1,11 +1,41 @@
 package io.github.hrashk.books.api.categories;
 
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findByName(String name);
+
+    List<Category> findByNameIn(Collection<String> names);
+
+    /**
+     * Adds a category unless another transaction has already done it. Never fails on the unique name.
+     *
+     * @return the number of inserted rows
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into categories (id, name) values (nextval('categories_seq'), :name)" +
+            " on conflict (name) do nothing", nativeQuery = true)
+    int insertIfAbsent(String name);
+
+    /**
+     * Bulk version of {@link #insertIfAbsent(String)}, a single statement for all the names.
+     *
+     * @return the number of inserted rows, the names already present are not counted
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into categories (id, name)" +
+            " select nextval('categories_seq'), name from unnest(cast(:names as text[])) as name" +
+            " on conflict (name) do nothing", nativeQuery = true)
+    int insertAllIfAbsent(String[] names);
 }
@@ -1,23 +1,161 @@
 package io.github.hrashk.books.api.categories;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Categories are a small and almost static set, so they are kept in memory by name.
+ * Only the committed categories get into the dictionary, so a rolled back insert never leaks into it.
+ */
 @Service
-@RequiredArgsConstructor
 public class CategoryService {
     private final CategoryRepository repository;
+    private final Map<String, Category> dictionary = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter found;
+    private final Counter inserted;
+
+    public CategoryService(CategoryRepository repository, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.repository = repository;
+
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        hits = lookups("hit", registry);
+        found = lookups("found", registry);
+        inserted = lookups("inserted", registry);
+    }
+
+    /**
+     * @param result {@code hit} for the dictionary, {@code found} for the database, {@code inserted} for a new one
+     */
+    private static Counter lookups(String result, MeterRegistry registry) {
+        return Counter.builder("books.categories.lookups")
+                .description("Lookups of the categories by name")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        dictionary.clear();
+        repository.findAll().forEach(c -> dictionary.put(c.getName(), c));
+    }
 
     public Category getOrAdd(String name) {
+        Category known = dictionary.get(name);
+
+        if (known != null) {
+            hits.increment();
+            return known;
+        }
+
         Optional<Category> category = repository.findByName(name);
 
-        if (category.isPresent())
-            return category.get();
+        if (category.isEmpty()) {
+            countInsertion(repository.insertIfAbsent(name));
+            category = repository.findByName(name);
+        } else {
+            found.increment();
+        }
+
+        remember(category.orElseThrow());
+
+        return category.get();
+    }
+
+    /**
+     * Bulk version of {@link #getOrAdd(String)} that needs a single query to find the categories
+     * missing from the dictionary, and a single insert plus a query to add those missing from the database.
+     *
+     * @return categories by name
+     */
+    public Map<String, Category> getOrAddAll(Collection<String> names) {
+        Map<String, Category> categories = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+
+        names.stream().distinct().forEach(name -> {
+            Category known = dictionary.get(name);
+
+            if (known == null)
+                unknown.add(name);
+            else
+                categories.put(name, known);
+        });
+
+        hits.increment(categories.size());
+
+        if (unknown.isEmpty())
+            return categories;
+
+        repository.findByNameIn(unknown).forEach(c -> categories.put(c.getName(), c));
+
+        List<String> missing = unknown.stream().filter(name -> !categories.containsKey(name)).toList();
+        found.increment(unknown.size() - missing.size());
+
+        if (!missing.isEmpty()) {
+            int added = repository.insertAllIfAbsent(missing.toArray(String[]::new));
+            inserted.increment(added);
+            found.increment(missing.size() - added);
+            repository.findByNameIn(missing).forEach(c -> categories.put(c.getName(), c));
+        }
+
+        unknown.forEach(name -> remember(categories.get(name)));
+
+        return categories;
+    }
+
+    /**
+     * @return the name of the category, looked up in the dictionary first
+     */
+    public Optional<String> findName(Long id) {
+        return dictionary.values().stream()
+                .filter(c -> id.equals(c.getId()))
+                .findAny()
+                .or(() -> repository.findById(id))
+                .map(Category::getName);
+    }
+
+    /**
+     * Drops a category renamed or deleted past this service, the next lookup by its name goes to the database.
+     */
+    public void forget(String name) {
+        dictionary.remove(name);
+    }
+
+    /**
+     * A category inserted by a concurrent transaction in the meantime counts as found.
+     *
+     * @param rows inserted by {@link CategoryRepository#insertIfAbsent(String)}
+     */
+    private void countInsertion(int rows) {
+        (rows == 0 ? found : inserted).increment();
+    }
 
-        var newCategory = new Category().toBuilder().name(name).build();
+    private void remember(Category category) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dictionary.put(category.getName(), category);
+            return;
+        }
 
-        return repository.save(newCategory);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dictionary.put(category.getName(), category);
+            }
+        });
     }
 }
@@ -0,0 +1,11 @@
+package io.github.hrashk.books.api.cdc;
+
+import java.util.List;
+
+/**
+ * Published by {@link ChangeDataCapture} for the changes committed to the database, by the app or past it.
+ *
+ * @param changes in the commit order
+ */
+public record CapturedChanges(List<RowChange> changes) {
+}
@@ -0,0 +1,207 @@
+package io.github.hrashk.books.api.cdc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGProperty;
+import org.postgresql.replication.LogSequenceNumber;
+import org.postgresql.replication.PGReplicationStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the changes of the books and the categories through the logical replication of Postgres,
+ * so that the changes made past the app, e.g. by bulk loads or by hand, reach the caches and the in-memory index.
+ * The changes are published as {@link CapturedChanges}.
+ * <p>
+ * The replication slot keeps the position of the last published change, so that a restarted node resumes
+ * from there instead of rescanning the tables. Postgres keeps the write-ahead log for the slot meanwhile,
+ * so a node that is gone for good should drop its slot. Each node needs a slot of its own, a node finding
+ * its slot in use fails to start.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "books-api.cdc.enabled", havingValue = "true")
+public class ChangeDataCapture implements SmartLifecycle {
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final Duration IDLE_POLL_INTERVAL = Duration.ofMillis(100);
+
+    private final DataSourceProperties dataSource;
+    private final ApplicationEventPublisher events;
+    private final String publication;
+    private final String slotName;
+    private final Duration statusInterval;
+    private final Duration retryDelay;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public ChangeDataCapture(DataSourceProperties dataSource, ApplicationEventPublisher events,
+                             @Value("${books-api.cdc.publication}") String publication,
+                             @Value("${books-api.cdc.slot-name}") String slotName,
+                             @Value("${books-api.cdc.status-interval}") Duration statusInterval,
+                             @Value("${books-api.cdc.retry-delay}") Duration retryDelay) {
+        this.dataSource = dataSource;
+        this.events = events;
+        this.publication = publication;
+        this.slotName = slotName;
+        this.statusInterval = statusInterval;
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Fails when another node streams from the slot, as the two would confirm each other's changes
+     * and each miss some of them. An unreachable database is retried by the capture instead.
+     */
+    @Override
+    public synchronized void start() {
+        try (Connection connection = connect()) {
+            failIfSlotInUse(connection);
+        } catch (SQLException e) {
+            log.warn("Could not check replication slot {}", slotName, e);
+        }
+
+        running = true;
+        worker = Thread.ofPlatform().name("change-data-capture").daemon().start(this::run);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        worker.interrupt();
+
+        try {
+            worker.join(retryDelay.plus(IDLE_POLL_INTERVAL).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection connection = connect()) {
+                createSlotIfAbsent(connection);
+                stream(connection);
+            } catch (SQLException | RuntimeException e) {
+                if (!running)
+                    return;
+
+                log.warn("Change data capture failed, retrying in {}", retryDelay, e);
+
+                try {
+                    TimeUnit.MILLISECONDS.sleep(retryDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        PGProperty.USER.set(properties, dataSource.determineUsername());
+        PGProperty.PASSWORD.set(properties, dataSource.determinePassword());
+        PGProperty.REPLICATION.set(properties, "database");
+        PGProperty.ASSUME_MIN_SERVER_VERSION.set(properties, "10");
+        PGProperty.PREFER_QUERY_MODE.set(properties, "simple");
+
+        return DriverManager.getConnection(dataSource.determineUrl(), properties);
+    }
+
+    private void failIfSlotInUse(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "select active_pid from pg_replication_slots where slot_name = ? and active")) {
+            statement.setString(1, slotName);
+
+            try (ResultSet slot = statement.executeQuery()) {
+                if (slot.next())
+                    throw new IllegalStateException(("Replication slot %s is in use by backend %d, "
+                            + "set books-api.cdc.slot-name to a slot of this node").formatted(slotName, slot.getInt(1)));
+            }
+        }
+    }
+
+    private void createSlotIfAbsent(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "select 1 from pg_replication_slots where slot_name = ?")) {
+            statement.setString(1, slotName);
+
+            try (ResultSet slot = statement.executeQuery()) {
+                if (slot.next())
+                    return;
+            }
+        }
+
+        connection.unwrap(PGConnection.class).getReplicationAPI()
+                .createReplicationSlot()
+                .logical()
+                .withSlotName(slotName)
+                .withOutputPlugin("pgoutput")
+                .make();
+        log.info("Created replication slot {}", slotName);
+    }
+
+    /**
+     * Publishes the changes once there are no more of them pending or there are enough of them for a batch,
+     * and only then confirms their position to the slot. A listener that fails, e.g. to evict the caches
+     * of the changes, thus ends the stream before the confirmation, and the slot replays the changes
+     * once the capture reconnects after the retry delay.
+     */
+    private void stream(Connection connection) throws SQLException, InterruptedException {
+        PGReplicationStream stream = connection.unwrap(PGConnection.class).getReplicationAPI()
+                .replicationStream()
+                .logical()
+                .withSlotName(slotName)
+                .withSlotOption("proto_version", 1)
+                .withSlotOption("publication_names", publication)
+                .withStatusInterval(Math.toIntExact(statusInterval.toMillis()), TimeUnit.MILLISECONDS)
+                .start();
+        PgOutputDecoder decoder = new PgOutputDecoder();
+        List<RowChange> changes = new ArrayList<>();
+
+        try (stream) {
+            while (running) {
+                ByteBuffer message = stream.readPending();
+
+                if (message != null)
+                    changes.addAll(decoder.decode(message));
+
+                if (message == null || changes.size() >= MAX_BATCH_SIZE) {
+                    if (!changes.isEmpty()) {
+                        events.publishEvent(new CapturedChanges(List.copyOf(changes)));
+                        changes.clear();
+                    }
+
+                    LogSequenceNumber position = stream.getLastReceiveLSN();
+                    stream.setAppliedLSN(position);
+                    stream.setFlushedLSN(position);
+                }
+
+                if (message == null)
+                    TimeUnit.MILLISECONDS.sleep(IDLE_POLL_INTERVAL.toMillis());
+            }
+        }
+    }
+}
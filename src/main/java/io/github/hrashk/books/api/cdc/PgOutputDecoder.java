@@ -0,0 +1,164 @@
+package io.github.hrashk.books.api.cdc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes the messages of the {@code pgoutput} plugin, protocol version 1, into row changes.
+ * <p>
+ * A relation is described by a message of its own ahead of its first change in the stream,
+ * so a decoder follows a single stream from its start.
+ */
+public class PgOutputDecoder {
+    private final Map<Integer, Relation> relations = new HashMap<>();
+
+    /**
+     * @return the changes of the message, none for the messages that change no rows like begin and commit
+     */
+    public List<RowChange> decode(ByteBuffer message) {
+        return switch (message.get()) {
+            case 'R' -> {
+                readRelation(message);
+                yield List.of();
+            }
+            case 'I' -> List.of(readInsert(message));
+            case 'U' -> List.of(readUpdate(message));
+            case 'D' -> List.of(readDelete(message));
+            case 'T' -> readTruncate(message);
+            default -> List.of();
+        };
+    }
+
+    private void readRelation(ByteBuffer message) {
+        int oid = message.getInt();
+        readString(message); // namespace
+        String table = readString(message);
+        message.get(); // replica identity
+        List<String> columns = new ArrayList<>();
+
+        for (int i = message.getShort(); i > 0; i--) {
+            message.get(); // flags
+            columns.add(readString(message));
+            message.getInt(); // type
+            message.getInt(); // type modifier
+        }
+
+        relations.put(oid, new Relation(table, columns));
+    }
+
+    private RowChange readInsert(ByteBuffer message) {
+        Relation relation = relation(message.getInt());
+        expect(message, 'N');
+
+        return new RowChange(relation.table(), RowChange.Operation.INSERT, Map.of(), readTuple(message, relation));
+    }
+
+    /**
+     * The old row comes only with a replica identity of the key or the full row.
+     */
+    private RowChange readUpdate(ByteBuffer message) {
+        Relation relation = relation(message.getInt());
+        Map<String, String> before = Map.of();
+        byte kind = message.get();
+
+        if (kind == 'K' || kind == 'O') {
+            before = readTuple(message, relation);
+            kind = message.get();
+        }
+
+        if (kind != 'N')
+            throw unexpected(kind);
+
+        return new RowChange(relation.table(), RowChange.Operation.UPDATE, before, readTuple(message, relation));
+    }
+
+    private RowChange readDelete(ByteBuffer message) {
+        Relation relation = relation(message.getInt());
+        byte kind = message.get();
+
+        if (kind != 'K' && kind != 'O')
+            throw unexpected(kind);
+
+        return new RowChange(relation.table(), RowChange.Operation.DELETE, readTuple(message, relation), Map.of());
+    }
+
+    private List<RowChange> readTruncate(ByteBuffer message) {
+        int count = message.getInt();
+        message.get(); // options
+        List<RowChange> changes = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++)
+            changes.add(new RowChange(relation(message.getInt()).table(), RowChange.Operation.TRUNCATE,
+                    Map.of(), Map.of()));
+
+        return changes;
+    }
+
+    /**
+     * The unchanged TOASTed values are not sent and are left out of the row.
+     */
+    private static Map<String, String> readTuple(ByteBuffer message, Relation relation) {
+        Map<String, String> row = new HashMap<>();
+        int count = message.getShort();
+
+        for (int i = 0; i < count; i++) {
+            String column = relation.columns().get(i);
+            byte kind = message.get();
+
+            switch (kind) {
+                case 'n' -> row.put(column, null);
+                case 'u' -> {
+                }
+                case 't', 'b' -> {
+                    byte[] value = new byte[message.getInt()];
+                    message.get(value);
+                    row.put(column, new String(value, StandardCharsets.UTF_8));
+                }
+                default -> throw unexpected(kind);
+            }
+        }
+
+        return Collections.unmodifiableMap(row);
+    }
+
+    private static String readString(ByteBuffer message) {
+        int end = message.position();
+
+        while (message.get(end) != 0)
+            end++;
+
+        byte[] value = new byte[end - message.position()];
+        message.get(value);
+        message.get(); // the terminating zero
+
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private Relation relation(int oid) {
+        Relation relation = relations.get(oid);
+
+        if (relation == null)
+            throw new IllegalStateException("No relation message for oid " + oid);
+
+        return relation;
+    }
+
+    private static void expect(ByteBuffer message, char kind) {
+        byte actual = message.get();
+
+        if (actual != kind)
+            throw unexpected(actual);
+    }
+
+    private static IllegalStateException unexpected(byte kind) {
+        return new IllegalStateException("Unexpected kind of tuple or value '%c'".formatted((char) kind));
+    }
+
+    private record Relation(String table, List<String> columns) {
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.hrashk.books.api.cdc;
+
+import java.util.Map;
+
+/**
+ * A committed change of a row, as captured from the write-ahead log. The values are in their text form.
+ *
+ * @param before the row before an update or a delete, empty for an insert or a truncate
+ * @param after  the row after an insert or an update, empty for a delete or a truncate
+ */
+public record RowChange(String table, Operation operation, Map<String, String> before, Map<String, String> after) {
+    public enum Operation {
+        INSERT, UPDATE, DELETE, TRUNCATE
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.hrashk.books.api.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times the operations of the {@link CrudService} beans as {@code books.crud.operations}, tagged by
+ * the service, the operation and its outcome: the {@link CrudResult.Status} of a write, {@code SUCCESS} for
+ * the other operations and {@code FAILURE} along with the exception class when one is thrown.
+ * <p>
+ * It wraps the transactions of the operations, so the time includes the commit.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CrudMetricsAspect {
+    private final MeterRegistry registry;
+
+    public CrudMetricsAspect(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
+    @Around("execution(* io.github.hrashk.books.api.common.CrudService.*(..))")
+    public Object time(ProceedingJoinPoint operation) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "SUCCESS";
+        String exception = "none";
+
+        try {
+            Object result = operation.proceed();
+
+            if (result instanceof CrudResult<?> crudResult)
+                outcome = crudResult.status().name();
+
+            return result;
+        } catch (Throwable e) {
+            outcome = "FAILURE";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("books.crud.operations")
+                    .description("Operations of the CRUD services")
+                    .tag("service", operation.getTarget().getClass().getSimpleName())
+                    .tag("operation", operation.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+}
@@ -1,16 +1,20 @@
 package io.github.hrashk.books.api.common;
 
-public record CrudResult<ID>(Status status, ID id) {
-    public static <ID> CrudResult<ID> found(ID id) {
-        return new CrudResult<>(Status.FOUND, id);
+/**
+ * The outcome of a write together with the persisted state of the entity,
+ * so that callers do not need to read it again.
+ */
+public record CrudResult<E>(Status status, E entity) {
+    public static <E> CrudResult<E> found(E entity) {
+        return new CrudResult<>(Status.FOUND, entity);
     }
 
-    public static <ID> CrudResult<ID> updated(ID newId) {
-        return new CrudResult<>(Status.UPDATED, newId);
+    public static <E> CrudResult<E> updated(E entity) {
+        return new CrudResult<>(Status.UPDATED, entity);
     }
 
-    public static <ID> CrudResult<ID> created(ID newId) {
-        return new CrudResult<>(Status.CREATED, newId);
+    public static <E> CrudResult<E> created(E entity) {
+        return new CrudResult<>(Status.CREATED, entity);
     }
 
     public enum Status {
@@ -2,12 +2,15 @@ package io.github.hrashk.books.api.exceptions;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ValidationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.util.stream.Collectors;
 
@@ -20,6 +23,13 @@ public class BooksApiAdvice {
         return new ErrorInfo(ex.getMessage());
     }
 
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseBody
+    ErrorInfo handleConcurrentUpdate(HttpServletRequest req, Exception ex) {
+        return new ErrorInfo("The entity was modified concurrently, please retry");
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(ValidationException.class)
     @ResponseBody
@@ -36,4 +46,17 @@ public class BooksApiAdvice {
                 .collect(Collectors.joining("\n"));
         return new ErrorInfo(message);
     }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    @ResponseBody
+    ErrorInfo handleMethodValidation(HandlerMethodValidationException ex) {
+        String message = ex.getAllValidationResults().stream()
+                .flatMap(r -> r.getResolvableErrors().stream())
+                .map(e -> e instanceof FieldError fe
+                        ? "%s: %s".formatted(fe.getField(), fe.getDefaultMessage())
+                        : e.getDefaultMessage())
+                .collect(Collectors.joining("\n"));
+        return new ErrorInfo(message);
+    }
 }
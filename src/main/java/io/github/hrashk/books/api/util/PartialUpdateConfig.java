@@ -0,0 +1,14 @@
+package io.github.hrashk.books.api.util;
+
+import org.mapstruct.MapperConfig;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.NullValuePropertyMappingStrategy;
+
+/**
+ * Shared configuration of the generated copiers that skip null properties of the source,
+ * a compile-time replacement of {@link BeanCopyUtils#copyProperties(Object, Object)}.
+ */
+@MapperConfig(componentModel = MappingConstants.ComponentModel.SPRING,
+        nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+public interface PartialUpdateConfig {
+}
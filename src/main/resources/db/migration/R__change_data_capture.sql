@@ -0,0 +1,22 @@
+-- Rerun whenever books-api.cdc.enabled changes (${cdcEnabled}), so that the tables pay for the change data capture
+-- only while it is enabled.
+-- The updates and deletes log the old values of the whole row, so that the change data capture
+-- knows the cache keys a book or a category had before the change. That makes the write-ahead log of
+-- every update and delete carry the old row besides the new one.
+-- The changes are streamed to the replication slot of books-api.cdc, see ChangeDataCapture
+DO $$
+BEGIN
+    IF ${cdcEnabled} THEN
+        ALTER TABLE books REPLICA IDENTITY FULL;
+        ALTER TABLE categories REPLICA IDENTITY FULL;
+
+        IF NOT EXISTS (SELECT FROM pg_publication WHERE pubname = '${cdcPublication}') THEN
+            CREATE PUBLICATION ${cdcPublication} FOR TABLE books, categories;
+        END IF;
+    ELSE
+        ALTER TABLE books REPLICA IDENTITY DEFAULT;
+        ALTER TABLE categories REPLICA IDENTITY DEFAULT;
+        DROP PUBLICATION IF EXISTS ${cdcPublication};
+    END IF;
+END
+$$;
@@ -0,0 +1,3 @@
+-- Rerun on every start (${flyway:timestamp}), so that the sequences follow books-api.id-allocation-size
+ALTER SEQUENCE books_seq INCREMENT BY ${idAllocationSize};
+ALTER SEQUENCE categories_seq INCREMENT BY ${idAllocationSize};
@@ -0,0 +1,18 @@
+-- The schema as Hibernate used to generate it
+CREATE SEQUENCE categories_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE books_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE categories
+(
+    id   BIGINT       NOT NULL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE books
+(
+    id          BIGINT       NOT NULL PRIMARY KEY,
+    title       VARCHAR(255) NOT NULL,
+    author      VARCHAR(255) NOT NULL,
+    category_id BIGINT       NOT NULL REFERENCES categories,
+    CONSTRAINT UniqueTitleAndAuthor UNIQUE (title, author)
+);
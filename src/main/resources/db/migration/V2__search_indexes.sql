@@ -0,0 +1,9 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Full-text search over title and author. The expression must match the one of BookSearchRepositoryImpl
+CREATE INDEX books_title_author_fts_idx
+    ON books USING gin (to_tsvector('simple', title || ' ' || author));
+
+-- Fuzzy and partial word matches
+CREATE INDEX books_title_trgm_idx ON books USING gin (title gin_trgm_ops);
+CREATE INDEX books_author_trgm_idx ON books USING gin (author gin_trgm_ops);
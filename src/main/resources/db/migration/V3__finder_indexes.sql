@@ -0,0 +1,7 @@
+-- BookRepository.findByCategoryName: the books of a category without visiting the table
+CREATE INDEX books_category_id_idx ON books (category_id) INCLUDE (id, title, author);
+
+-- BookRepository.findByTitleAndAuthor and findByTitleIn: the unique index covers the rest of the columns
+ALTER TABLE books
+    DROP CONSTRAINT UniqueTitleAndAuthor,
+    ADD CONSTRAINT UniqueTitleAndAuthor UNIQUE (title, author) INCLUDE (id, category_id);
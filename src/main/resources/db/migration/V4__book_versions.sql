@@ -0,0 +1,10 @@
+-- Book.version, the optimistic lock and the ETag of a book
+ALTER TABLE books ADD COLUMN version bigint NOT NULL DEFAULT 0;
+
+-- The finder indexes keep covering the columns the finders read
+DROP INDEX books_category_id_idx;
+CREATE INDEX books_category_id_idx ON books (category_id) INCLUDE (id, title, author, version);
+
+ALTER TABLE books
+    DROP CONSTRAINT UniqueTitleAndAuthor,
+    ADD CONSTRAINT UniqueTitleAndAuthor UNIQUE (title, author) INCLUDE (id, category_id, version);
@@ -1 +0,0 @@
-CREATE SCHEMA books_schema;
@@ -0,0 +1,84 @@
+package io.github.hrashk.books.api;
+
+import io.github.hrashk.books.api.books.web.BookResponse;
+import io.github.hrashk.books.api.books.web.UpsertRequest;
+import io.github.hrashk.books.api.util.ControllerTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@AutoConfigureObservability(tracing = false)
+class MetricsControllerTests extends ControllerTest {
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void writesAreTimedByOutcome() {
+        var book = seeder.books().get(0);
+        var request = new UpsertRequest(book.getTitle(), book.getAuthor(), book.getCategory().getName());
+        long created = timedCalls("books.crud.operations",
+                "service", "BookService", "operation", "add", "outcome", "CREATED");
+        long found = timedCalls("books.crud.operations",
+                "service", "BookService", "operation", "add", "outcome", "FOUND");
+
+        rest.postForEntity("/api/v1/books", new UpsertRequest("t", "a", "new category"), BookResponse.class);
+        rest.postForEntity("/api/v1/books", request, BookResponse.class);
+
+        assertAll(
+                () -> assertThat(timedCalls("books.crud.operations",
+                        "service", "BookService", "operation", "add", "outcome", "CREATED") - created).isEqualTo(1),
+                () -> assertThat(timedCalls("books.crud.operations",
+                        "service", "BookService", "operation", "add", "outcome", "FOUND") - found).isEqualTo(1),
+                () -> assertThat(registry.get("books.categories.lookups").tag("result", "inserted")
+                        .counter().count()).isPositive()
+        );
+    }
+
+    @Test
+    void writesRespondWithoutReadingTheBookAgain() {
+        var book = seeder.books().get(0);
+        long repositoryReads = timedCalls("spring.data.repository.invocations",
+                "repository", "BookRepository", "method", "findById");
+        long serviceReads = timedCalls("books.crud.operations", "service", "BookService", "operation", "findById");
+
+        rest.postForEntity("/api/v1/books", new UpsertRequest("t", "a", book.getCategory().getName()),
+                BookResponse.class);
+        put("/api/v1/books/{id}", new UpsertRequest(book.getTitle(), "new author", book.getCategory().getName()),
+                BookResponse.class, book.getId());
+
+        assertAll(
+                // the lookup of the update itself
+                () -> assertThat(timedCalls("spring.data.repository.invocations",
+                        "repository", "BookRepository", "method", "findById") - repositoryReads).isEqualTo(1),
+                () -> assertThat(timedCalls("books.crud.operations",
+                        "service", "BookService", "operation", "findById") - serviceReads).isZero()
+        );
+    }
+
+    @Test
+    void prometheusScrapesTheServicesRepositoriesAndCaches() {
+        rest.getForEntity("/api/v1/books/{id}", BookResponse.class, 0);
+        rest.getForEntity("/api/v1/books/by-category?category={c}", String.class, "any");
+
+        ResponseEntity<String> scrape = rest.getForEntity("/actuator/prometheus", String.class);
+
+        assertThat(scrape.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(scrape.getBody()).contains(
+                "books_crud_operations_seconds_bucket",
+                "exception=\"EntityNotFoundException\"",
+                "spring_data_repository_invocations_seconds_bucket",
+                "books_categories_lookups_total",
+                "cache_remote_calls_seconds_count");
+    }
+
+    private long timedCalls(String name, String... tags) {
+        return registry.find(name).tags(tags).timers().stream().mapToLong(Timer::count).sum();
+    }
+}
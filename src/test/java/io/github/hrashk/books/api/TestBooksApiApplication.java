@@ -7,6 +7,7 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.containers.wait.strategy.Wait;
@@ -15,11 +16,25 @@ import org.testcontainers.containers.wait.strategy.Wait;
 @Import(DataSeeder.class)
 public class TestBooksApiApplication {
 
+    /**
+     * Not a service connection: the app expects its tables in the schema set by the connection urls.
+     */
     @Bean
-    @ServiceConnection
-    PostgreSQLContainer<?> postgresContainer() {
-        return new PostgreSQLContainer<>("postgres:16-alpine")
+    PostgreSQLContainer<?> postgresContainer(DynamicPropertyRegistry properties) {
+        var container = new PostgreSQLContainer<>("postgres:16-alpine")
                 .waitingFor(Wait.forListeningPort());
+
+        properties.add("spring.datasource.url",
+                () -> container.getJdbcUrl() + "&currentSchema=books_schema&reWriteBatchedInserts=true");
+        properties.add("spring.datasource.username", container::getUsername);
+        properties.add("spring.datasource.password", container::getPassword);
+        properties.add("spring.r2dbc.url", () -> "r2dbc:postgresql://%s:%d/%s?schema=books_schema".formatted(
+                container.getHost(), container.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT),
+                container.getDatabaseName()));
+        properties.add("spring.r2dbc.username", container::getUsername);
+        properties.add("spring.r2dbc.password", container::getPassword);
+
+        return container;
     }
 
     @Bean
@@ -0,0 +1,37 @@
+package io.github.hrashk.books.api.benchmarks;
+
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.books.BookCopier;
+import io.github.hrashk.books.api.books.BookCopierImpl;
+import io.github.hrashk.books.api.categories.Category;
+import io.github.hrashk.books.api.util.BeanCopyUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reflective null-skipping copy with the generated one on the upsert path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanCopyBenchmark {
+    private final BookCopier copier = new BookCopierImpl();
+    private final Book from = new Book(null, "new title", "new author", new Category(2L, "category"));
+    private final Book into = new Book(1L, "title", "author", new Category(1L, "other"));
+
+    @Benchmark
+    public Book reflective() {
+        BeanCopyUtils.copyProperties(from, into);
+        return into;
+    }
+
+    @Benchmark
+    public Book generated() {
+        copier.copyNonNullProperties(from, into);
+        return into;
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.hrashk.books.api.benchmarks;
+
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.books.SearchTerms;
+import io.github.hrashk.books.api.books.search.BookIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches of the in-memory index of books. The setup reports the footprint of the index:
+ * its own estimate and the growth of the heap, both including the titles and authors.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookIndexBenchmark {
+    @Param({"1000000"})
+    public int books;
+
+    private BookIndex index;
+    private SearchTerms twoWords;
+    private SearchTerms shortPrefix;
+    private SearchTerms titleAndAuthor;
+    private String category;
+
+    @Setup
+    public void setUp() {
+        long heapBefore = usedHeap();
+        List<Book> sample = SampleData.books(books);
+        long sampleSize = usedHeap() - heapBefore;
+
+        long start = System.nanoTime();
+        index = new BookIndex();
+        sample.forEach(index::put);
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Book book = sample.get(books / 2);
+        String[] title = SearchTerms.words(book.getTitle());
+        String[] author = SearchTerms.words(book.getAuthor());
+        twoWords = SearchTerms.parse(title[0] + " " + author[author.length - 1]);
+        shortPrefix = SearchTerms.parse(title[0].substring(0, Math.min(2, title[0].length())));
+        titleAndAuthor = SearchTerms.parse(book.getTitle() + " " + book.getAuthor());
+        category = book.getCategory().getName();
+
+        sample = null;
+        long indexSize = usedHeap() - heapBefore;
+        BookIndex.Statistics statistics = index.statistics();
+
+        System.out.printf("%nIndexed %d books in %d ms: %d words, %d postings%n",
+                statistics.documents(), buildMillis, statistics.words(), statistics.postings());
+        System.out.printf("Estimated size %d MB (%d bytes per book), heap growth %d MB, sample data %d MB%n",
+                statistics.estimatedSize() >> 20, statistics.estimatedSize() / statistics.documents(),
+                indexSize >> 20, sampleSize >> 20);
+    }
+
+    @Benchmark
+    public List<Book> twoWords() {
+        return index.search(twoWords, null, 0, 21);
+    }
+
+    @Benchmark
+    public List<Book> shortPrefix() {
+        return index.search(shortPrefix, null, 0, 21);
+    }
+
+    @Benchmark
+    public List<Book> titleAndAuthor() {
+        return index.search(titleAndAuthor, null, 0, 21);
+    }
+
+    @Benchmark
+    public List<Book> twoWordsInCategory() {
+        return index.search(twoWords, category, 0, 21);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++)
+            System.gc();
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
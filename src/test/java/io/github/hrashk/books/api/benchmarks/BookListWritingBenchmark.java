@@ -0,0 +1,66 @@
+package io.github.hrashk.books.api.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.books.web.BookListResponse;
+import io.github.hrashk.books.api.books.web.BookListing;
+import io.github.hrashk.books.api.books.web.BookMapper;
+import io.github.hrashk.books.api.books.web.BookMapperImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a category listing to the response: mapped to {@link BookListResponse} first as it used to be,
+ * or streamed from the books by {@link BookListing}. See {@code gc.alloc.rate.norm} for the bytes allocated per listing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookListWritingBenchmark {
+    @Param({"100", "10000"})
+    public int size;
+
+    private final BookMapper mapper = new BookMapperImpl();
+    /**
+     * Discards the output and survives the writers closing it.
+     */
+    private final OutputStream response = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+    private ObjectWriter mappedWriter;
+    private ObjectWriter streamedWriter;
+    private List<Book> books;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        mappedWriter = objectMapper.writerFor(BookListResponse.class);
+        streamedWriter = objectMapper.writerFor(BookListing.class);
+        books = SampleData.books(size);
+    }
+
+    @Benchmark
+    public void mapped() throws IOException {
+        mappedWriter.writeValue(response, mapper.wrap(books));
+    }
+
+    @Benchmark
+    public void streamed() throws IOException {
+        streamedWriter.writeValue(response, new BookListing(books));
+    }
+}
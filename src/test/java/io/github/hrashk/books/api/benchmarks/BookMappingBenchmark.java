@@ -0,0 +1,37 @@
+package io.github.hrashk.books.api.benchmarks;
+
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.books.web.BookListResponse;
+import io.github.hrashk.books.api.books.web.BookMapper;
+import io.github.hrashk.books.api.books.web.BookMapperImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of a category listing to its response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMappingBenchmark {
+    @Param({"100", "10000"})
+    public int size;
+
+    private final BookMapper mapper = new BookMapperImpl();
+    private List<Book> books;
+
+    @Setup
+    public void setUp() {
+        books = SampleData.books(size);
+    }
+
+    @Benchmark
+    public BookListResponse wrap() {
+        return mapper.wrap(books);
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.hrashk.books.api.benchmarks;
+
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.cache.CacheCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cache value codecs on a category listing.
+ * The {@code payloadBytes} secondary metric reports the size of a single encoded listing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializationBenchmark {
+    @Param({"COMPACT", "JDK", "JSON"})
+    public CacheCodec codec;
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private RedisSerializer<Object> serializer;
+    private List<Book> books;
+    private byte[] payload;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Payload {
+        public long payloadBytes;
+    }
+
+    @Setup
+    public void setUp() {
+        serializer = codec.serializer();
+        books = SampleData.books(size);
+        payload = serializer.serialize(books);
+    }
+
+    @Benchmark
+    public byte[] encode(Payload counters) {
+        byte[] bytes = serializer.serialize(books);
+        counters.payloadBytes = bytes.length;
+
+        return bytes;
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(payload);
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.hrashk.books.api.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.github.hrashk.books.api.books.web.BookListResponse;
+import io.github.hrashk.books.api.books.web.BookMapperImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of a category listing with an object mapper configured like the one of the application.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    @Param({"100", "10000"})
+    public int size;
+
+    private ObjectWriter writer;
+    private BookListResponse response;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = mapper.writerFor(BookListResponse.class);
+        response = new BookMapperImpl().wrap(SampleData.books(size));
+    }
+
+    @Benchmark
+    public byte[] write() throws JsonProcessingException {
+        return writer.writeValueAsBytes(response);
+    }
+}
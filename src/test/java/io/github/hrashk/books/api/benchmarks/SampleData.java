@@ -0,0 +1,34 @@
+package io.github.hrashk.books.api.benchmarks;
+
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.categories.Category;
+import net.datafaker.Faker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The same books on every run, so that the results of different runs are comparable.
+ */
+final class SampleData {
+    private static final int CATEGORIES = 20;
+
+    private SampleData() {
+    }
+
+    static List<Book> books(int count) {
+        var faker = new Faker(new Random(42));
+        List<Category> categories = new ArrayList<>();
+
+        for (long i = 0; i < CATEGORIES; i++)
+            categories.add(new Category(i, faker.book().genre()));
+
+        List<Book> books = new ArrayList<>(count);
+
+        for (long i = 0; i < count; i++)
+            books.add(new Book(i, faker.book().title(), faker.book().author(), categories.get((int) (i % CATEGORIES))));
+
+        return books;
+    }
+}
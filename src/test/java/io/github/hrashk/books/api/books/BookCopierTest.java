@@ -0,0 +1,37 @@
+package io.github.hrashk.books.api.books;
+
+import io.github.hrashk.books.api.categories.Category;
+import io.github.hrashk.books.api.util.BeanCopyUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class BookCopierTest {
+    private final BookCopier copier = new BookCopierImpl();
+
+    @Test
+    void skipsNullProperties() {
+        Book from = new Book(null, "new title", null, null);
+        Book into = new Book(1L, "title", "author", new Category(2L, "category"));
+
+        copier.copyNonNullProperties(from, into);
+
+        assertThat(into).isEqualTo(new Book(1L, "new title", "author", new Category(2L, "category")));
+    }
+
+    @Test
+    void matchesReflectiveCopy() {
+        Book from = new Book(null, null, "new author", new Category(3L, "new category"));
+        Book generated = new Book(1L, "title", "author", new Category(2L, "category"));
+        Book reflective = generated.toBuilder().build();
+
+        copier.copyNonNullProperties(from, generated);
+        BeanCopyUtils.copyProperties(from, reflective);
+
+        assertAll(
+                () -> assertThat(generated).isEqualTo(reflective),
+                () -> assertThat(generated.getCategory()).isSameAs(from.getCategory())
+        );
+    }
+}
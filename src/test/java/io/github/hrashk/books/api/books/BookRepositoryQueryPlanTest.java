@@ -0,0 +1,118 @@
+package io.github.hrashk.books.api.books;
+
+import io.github.hrashk.books.api.util.ServiceTest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the finders are served by the indexes of the migrations once the tables are large enough
+ * for the planner to prefer them.
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector"
+        + "=io.github.hrashk.books.api.books.BookRepositoryQueryPlanTest$RecordingInspector")
+class BookRepositoryQueryPlanTest extends ServiceTest {
+    @Autowired
+    private BookRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Book book;
+
+    @BeforeEach
+    void seedAtScale() {
+        seeder.seedAtScale(100, 20_000);
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.createNativeQuery("analyze books, categories").executeUpdate();
+        book = seeder.books().get(0);
+        RecordingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void findByCategoryName() {
+        String category = book.getCategory().getName();
+        repository.findByCategoryName(category);
+
+        assertThat(plan(category)).contains("books_category_id_idx").doesNotContain("Seq Scan on books");
+    }
+
+    @Test
+    void findByTitleAndAuthor() {
+        repository.findByTitleAndAuthor(book.getTitle(), book.getAuthor());
+
+        assertThat(plan(book.getTitle(), book.getAuthor())).contains("Index Only Scan using uniquetitleandauthor");
+    }
+
+    @Test
+    void findByTitleIn() {
+        repository.findByTitleIn(List.of(book.getTitle(), "another title"));
+
+        assertThat(plan(book.getTitle(), "another title"))
+                .contains("uniquetitleandauthor").doesNotContain("Seq Scan on books");
+    }
+
+    @Test
+    void findByIdGreaterThanOrderById() {
+        repository.findByIdGreaterThanOrderById(book.getId(), Limit.of(100));
+
+        assertThat(plan(book.getId(), 0, 100)).contains("Index Scan using books_pkey").doesNotContain("Sort");
+    }
+
+    @Test
+    void search() {
+        SearchTerms terms = SearchTerms.parse(book.getAuthor());
+        repository.search(terms, 0, 20);
+
+        assertThat(plan(terms.tsQuery(), terms.text(), terms.text(), terms.tsQuery(), terms.text(), terms.text(), 0L, 20))
+                .contains("books_title_author_fts_idx").doesNotContain("Seq Scan on books");
+    }
+
+    /**
+     * Explains the first statement of the finder, the others load its associations.
+     *
+     * @param parameters the values of the parameters in the order they appear in the statement
+     */
+    @SuppressWarnings("unchecked")
+    private String plan(Object... parameters) {
+        assertThat(RecordingInspector.STATEMENTS).isNotEmpty();
+        String sql = RecordingInspector.STATEMENTS.get(0);
+        StringBuilder numbered = new StringBuilder("explain ");
+        int parameter = 0;
+
+        for (char c : sql.toCharArray()) {
+            if (c == '?')
+                numbered.append('?').append(++parameter);
+            else
+                numbered.append(c);
+        }
+
+        Query explain = entityManager.createNativeQuery(numbered.toString());
+
+        for (int i = 0; i < parameters.length; i++)
+            explain.setParameter(i + 1, parameters[i]);
+
+        return String.join("\n", (List<String>) explain.getResultList());
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -4,8 +4,10 @@ import io.github.hrashk.books.api.CachingConfig;
 import io.github.hrashk.books.api.categories.Category;
 import io.github.hrashk.books.api.categories.CategoryService;
 import io.github.hrashk.books.api.common.CrudResult;
-import io.github.hrashk.books.api.exceptions.EntityNotFoundException;
 import io.github.hrashk.books.api.util.ServiceTest;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,28 +15,57 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.interceptor.SimpleKey;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Objects;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertAll;
 
-@Import({BookService.class, CategoryService.class, CachingConfig.class})
+/**
+ * Runs outside a test transaction, so that the service commits and evicts the caches as it does in production.
+ */
+@Import({BookService.class, BookCopierImpl.class, CategoryService.class, CachingConfig.class})
+@TestPropertySource(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+        "books-api.cache.second-eviction-delay=0s"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
 class BookServiceTest extends ServiceTest {
-    protected Cache cache;
+    protected Cache booksByCategory;
+    protected Cache bookByTitleAndAuthor;
 
     @Autowired
     private CacheManager cacheManager;
 
+    @Autowired
+    private EntityManager entityManager;
+
     @Autowired
     private BookService service;
 
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookRepository repository;
+
     @BeforeEach
     void setUpCache() {
-        cache = cacheManager.getCache(BookService.BOOKS);
-        assertThat(cache).as("Cache").isNotNull();
-        cache.clear();
+        categoryService.reload();
+        booksByCategory = cacheManager.getCache(BookService.BOOKS_BY_CATEGORY);
+        bookByTitleAndAuthor = cacheManager.getCache(BookService.BOOK_BY_TITLE_AND_AUTHOR);
+        assertThat(booksByCategory).as("Cache").isNotNull();
+        assertThat(bookByTitleAndAuthor).as("Cache").isNotNull();
+        booksByCategory.clear();
+        bookByTitleAndAuthor.clear();
+        Objects.requireNonNull(cacheManager.getCache(BookService.BOOK_SEARCH)).clear();
     }
 
     @Test
@@ -45,7 +76,7 @@ class BookServiceTest extends ServiceTest {
         List<Book> books = service.findByCategory(category);
         assertThat(books).isNotEmpty();
 
-        Cache.ValueWrapper wrapper = cache.get(category);
+        Cache.ValueWrapper wrapper = booksByCategory.get(category);
         assertThat(wrapper).as("Cached value").isNotNull();
 
         List<Book> cached = (List<Book>) wrapper.get();
@@ -56,14 +87,127 @@ class BookServiceTest extends ServiceTest {
     @Test
     void findByTitleAndAuthor() {
         Book book = seeder.books().get(0);
-        Book foundBook = service.findByTitleAndAuthor(book.getTitle(), book.getAuthor());
+        Book foundBook = service.findByTitleAndAuthor(book.getTitle(), book.getAuthor()).orElseThrow();
         assertThat(foundBook).isEqualTo(book);
 
         SimpleKey key = new SimpleKey(book.getTitle(), book.getAuthor());
-        Book cachedBook = cache.get(key, Book.class);
+        Book cachedBook = bookByTitleAndAuthor.get(key, Book.class);
         assertThat(cachedBook).isEqualTo(book);
     }
 
+    @Test
+    void missingBookIsRememberedWithoutQueries() {
+        assertThat(service.findByTitleAndAuthor("absent title", "absent author")).isEmpty();
+        Statistics statistics = freshStatistics();
+
+        assertThat(service.findByTitleAndAuthor("absent title", "absent author")).isEmpty();
+
+        Cache.ValueWrapper miss = bookByTitleAndAuthor.get(new SimpleKey("absent title", "absent author"));
+        assertAll(
+                () -> assertThat(statistics.getPrepareStatementCount()).isZero(),
+                () -> assertThat(miss).as("Cached miss").isNotNull(),
+                () -> assertThat(miss.get()).isNull()
+        );
+    }
+
+    @Test
+    void versionIsCachedAndReplacedByTheChanges() {
+        Book book = seeder.detachedBookCopy(0);
+        service.findById(book.getId());
+        Statistics statistics = freshStatistics();
+
+        assertThat(service.cachedVersion(book.getId())).isEqualTo(book.getVersion());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        service.update(book.getId(), book.toBuilder().author("new author").build());
+
+        assertThat(service.cachedVersion(book.getId())).isEqualTo(book.getVersion() + 1);
+
+        service.deleteById(book.getId());
+
+        assertThat(service.cachedVersion(book.getId())).isNull();
+    }
+
+    @Test
+    void readBeforeTheUpdateDoesNotReplaceTheNewVersion() {
+        Book book = seeder.detachedBookCopy(0);
+        Cache versions = Objects.requireNonNull(cacheManager.getCache(BookService.BOOK_VERSIONS));
+
+        service.update(book.getId(), book.toBuilder().author("new author").build());
+        // what findById puts after reading the book before the update
+        versions.putIfAbsent(book.getId(), book.getVersion());
+
+        assertThat(service.cachedVersion(book.getId())).isEqualTo(book.getVersion() + 1);
+    }
+
+    @Test
+    void cachesAreEvictedOnCommit() {
+        Book book = seeder.detachedBookCopy(0);
+        SimpleKey key = new SimpleKey(book.getTitle(), book.getAuthor());
+        service.findByTitleAndAuthor(book.getTitle(), book.getAuthor());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            service.update(book.getId(), book.toBuilder().author("new author").build());
+            service.update(book.getId(), book.toBuilder().author("newer author").build());
+
+            assertThat(bookByTitleAndAuthor.get(key)).as("Cached until the commit").isNotNull();
+        });
+
+        assertThat(bookByTitleAndAuthor.get(key)).as("Cached after the commit").isNull();
+    }
+
+    @Test
+    void renderedResponsesAreEvictedWhateverTheSetting() {
+        Book book = seeder.detachedBookCopy(0);
+        String category = book.getCategory().getName();
+        Cache rendered = Objects.requireNonNull(cacheManager.getCache(BookService.RENDERED_BOOKS_BY_CATEGORY));
+        rendered.put(category, "[]".getBytes());
+
+        service.update(book.getId(), book.toBuilder().author("new author").build());
+
+        assertThat(rendered.get(category)).isNull();
+    }
+
+    @Test
+    void cachesAreKeptOnRollback() {
+        Book book = seeder.detachedBookCopy(0);
+        SimpleKey key = new SimpleKey(book.getTitle(), book.getAuthor());
+        service.findByTitleAndAuthor(book.getTitle(), book.getAuthor());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            service.update(book.getId(), book.toBuilder().author("new author").build());
+            status.setRollbackOnly();
+        });
+
+        assertThat(bookByTitleAndAuthor.get(key, Book.class)).isEqualTo(book);
+    }
+
+    @Test
+    void searchByWordPrefixes() {
+        Book book = seeder.books().get(0);
+        String title = book.getTitle();
+        SearchTerms terms = SearchTerms.parse(title.substring(0, title.length() - 1) + " " + book.getAuthor());
+
+        List<Book> found = service.search(terms, 0, 10);
+
+        assertThat(found).first().isEqualTo(book);
+    }
+
+    @Test
+    void searchResultsAreReplacedOnChanges() {
+        SearchTerms terms = SearchTerms.parse("unheard of");
+        assertThat(service.search(terms, 0, 10)).isEmpty();
+
+        Book book = new Book().toBuilder()
+                .title("Unheard Of")
+                .author("new author")
+                .category(seeder.categories().get(0))
+                .build();
+        service.add(book);
+
+        assertThat(service.search(terms, 0, 10)).containsExactly(book);
+    }
+
     @Test
     void addNewBook() {
         Category category = seeder.categories().get(0);
@@ -73,8 +217,7 @@ class BookServiceTest extends ServiceTest {
 
         // cache things
         int size = service.findByCategory(categoryName).size();
-        assertThatThrownBy(() -> service.findByTitleAndAuthor(title, author))
-                .isInstanceOf(EntityNotFoundException.class);
+        assertThat(service.findByTitleAndAuthor(title, author)).isEmpty();
 
         // modify
         Book book = new Book().toBuilder()
@@ -82,13 +225,13 @@ class BookServiceTest extends ServiceTest {
                 .author(author)
                 .category(category)
                 .build();
-        CrudResult<Long> result = service.add(book);
+        CrudResult<Book> result = service.add(book);
 
         // check the caches are modified
         assertAll(
                 () -> assertThat(result.status()).isEqualTo(CrudResult.Status.CREATED),
                 () -> assertThat(service.findByCategory(categoryName)).hasSize(size + 1),
-                () -> assertThat(service.findByTitleAndAuthor(title, author)).isEqualTo(book)
+                () -> assertThat(service.findByTitleAndAuthor(title, author)).contains(book)
         );
     }
 
@@ -107,7 +250,7 @@ class BookServiceTest extends ServiceTest {
 
         // modify
         Book similarBook = book.toBuilder().category(category2).build();
-        CrudResult<Long> result = service.add(similarBook);
+        CrudResult<Book> result = service.add(similarBook);
 
         // check the caches are modified
         assertAll(
@@ -115,7 +258,7 @@ class BookServiceTest extends ServiceTest {
                 () -> assertThat(service.findByCategory(categoryName1)).hasSize(size1 - 1),
                 () -> assertThat(service.findByCategory(categoryName2)).hasSize(size2 + 1),
                 () -> assertThat(service.findByTitleAndAuthor(book.getTitle(), book.getAuthor()))
-                        .isEqualTo(similarBook)
+                        .contains(similarBook)
         );
     }
 
@@ -128,12 +271,11 @@ class BookServiceTest extends ServiceTest {
         // cache things
         int size = service.findByCategory(categoryName).size();
         service.findByTitleAndAuthor(book.getTitle(), book.getAuthor());
-        assertThatThrownBy(() -> service.findByTitleAndAuthor(book.getTitle(), newAuthor))
-                .isInstanceOf(EntityNotFoundException.class);
+        assertThat(service.findByTitleAndAuthor(book.getTitle(), newAuthor)).isEmpty();
 
         // modify
         Book modifiedBook = book.toBuilder().author(newAuthor).build();
-        CrudResult<Long> result = service.update(book.getId(), modifiedBook);
+        CrudResult<Book> result = service.update(book.getId(), modifiedBook);
 
         // check the caches are modified
         assertAll(
@@ -142,7 +284,7 @@ class BookServiceTest extends ServiceTest {
                 () -> assertThat(service.findByCategory(categoryName)).contains(modifiedBook),
                 () -> assertThat(service.findByCategory(categoryName)).doesNotContain(book),
                 () -> assertThat(service.findByTitleAndAuthor(book.getTitle(), newAuthor))
-                        .isEqualTo(modifiedBook)
+                        .contains(modifiedBook)
         );
     }
 
@@ -161,7 +303,7 @@ class BookServiceTest extends ServiceTest {
 
         // modify
         Book similarBook = book.toBuilder().category(category2).build();
-        CrudResult<Long> result = service.update(book.getId(), similarBook);
+        CrudResult<Book> result = service.update(book.getId(), similarBook);
 
         // check the caches are modified
         assertAll(
@@ -169,7 +311,7 @@ class BookServiceTest extends ServiceTest {
                 () -> assertThat(service.findByCategory(categoryName1)).hasSize(size1 - 1),
                 () -> assertThat(service.findByCategory(categoryName2)).hasSize(size2 + 1),
                 () -> assertThat(service.findByTitleAndAuthor(book.getTitle(), book.getAuthor()))
-                        .isEqualTo(similarBook)
+                        .contains(similarBook)
         );
     }
 
@@ -191,7 +333,7 @@ class BookServiceTest extends ServiceTest {
 
         // modify first book to become similar to the second one
         Book similarBook = book2.toBuilder().category(new Category().toBuilder().name(newCategory).build()).build();
-        CrudResult<Long> result = service.update(book1.getId(), similarBook);
+        CrudResult<Book> result = service.update(book1.getId(), similarBook);
 
         // check the caches are modified
         assertAll(
@@ -200,9 +342,8 @@ class BookServiceTest extends ServiceTest {
                 () -> assertThat(service.findByCategory(categoryName2)).hasSize(size2 - 1),
                 () -> assertThat(service.findByCategory(newCategory)).hasSize(1),
                 () -> assertThat(service.findByTitleAndAuthor(book2.getTitle(), book2.getAuthor()))
-                        .isEqualTo(similarBook),
-                () -> assertThatThrownBy(() -> service.findByTitleAndAuthor(book1.getTitle(), book1.getAuthor()))
-                        .isInstanceOf(EntityNotFoundException.class)
+                        .contains(similarBook),
+                () -> assertThat(service.findByTitleAndAuthor(book1.getTitle(), book1.getAuthor())).isEmpty()
         );
     }
 
@@ -221,8 +362,84 @@ class BookServiceTest extends ServiceTest {
         // check the caches are modified
         assertAll(
                 () -> assertThat(service.findByCategory(categoryName)).hasSize(size - 1),
-                () -> assertThatThrownBy(() -> service.findByTitleAndAuthor(book.getTitle(), book.getAuthor()))
-                        .isInstanceOf(EntityNotFoundException.class)
+                () -> assertThat(service.findByTitleAndAuthor(book.getTitle(), book.getAuthor())).isEmpty()
+        );
+    }
+
+    @Test
+    void listsTakeOneStatementEach() {
+        Book book = seeder.books().get(0);
+        Statistics statistics = freshStatistics();
+
+        assertAll(
+                () -> assertThat(service.findPage(null, 100)).hasSize(seeder.books().size()),
+                () -> assertThat(service.findByCategory(book.getCategory().getName())).contains(book),
+                () -> assertThat(service.search(SearchTerms.parse(book.getAuthor()), 0, 100)).contains(book),
+                () -> assertThat(statistics.getPrepareStatementCount()).isEqualTo(3),
+                () -> assertThat(statistics.getEntityLoadCount()).isZero()
+        );
+    }
+
+    @Test
+    void addReturnsPersistedStateWithMinimalStatements() {
+        Category category = seeder.categories().get(0);
+        Book book = new Book().toBuilder()
+                .title("new title")
+                .author("new author")
+                .category(new Category().toBuilder().name(category.getName()).build())
+                .build();
+        allocateFreshIdBlock();
+        Statistics statistics = freshStatistics();
+
+        CrudResult<Book> result = service.add(book);
+        assertAll(
+                () -> assertThat(result.entity().getId()).isNotNull(),
+                () -> assertThat(result.entity().getCategory()).isEqualTo(category),
+                // title and author lookup and insert, the category is known and the id is allocated already
+                () -> assertThat(statistics.getPrepareStatementCount()).isEqualTo(2)
         );
     }
+
+    @Test
+    void updateReturnsPersistedStateWithMinimalStatements() {
+        Book book = seeder.detachedBookCopy(0);
+        Book modifiedBook = book.toBuilder().id(null).author("new author").build();
+        Statistics statistics = freshStatistics();
+
+        CrudResult<Book> result = service.update(book.getId(), modifiedBook);
+        assertAll(
+                () -> assertThat(result.entity().getId()).isEqualTo(book.getId()),
+                () -> assertThat(result.entity().getAuthor()).isEqualTo("new author"),
+                // lookup by id, title and author lookup and update, the category is known
+                () -> assertThat(statistics.getPrepareStatementCount()).isEqualTo(3)
+        );
+    }
+
+    /**
+     * Saves throwaway books until one of them takes a new block of ids from the sequence,
+     * so that the next inserts need no sequence call.
+     */
+    private void allocateFreshIdBlock() {
+        Statistics statistics = freshStatistics();
+        int i = 0;
+
+        do {
+            statistics.clear();
+            repository.save(new Book().toBuilder()
+                    .title("throwaway title " + i++)
+                    .author("throwaway author")
+                    .category(seeder.categories().get(0))
+                    .build());
+        } while (statistics.getPrepareStatementCount() < 2);
+    }
+
+    /**
+     * Resets the counters, the seeded entities are committed and detached already.
+     */
+    private Statistics freshStatistics() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        return statistics;
+    }
 }
@@ -1,14 +1,21 @@
 package io.github.hrashk.books.api.books;
 
+import io.github.hrashk.books.api.books.web.BatchItemResponse;
 import io.github.hrashk.books.api.books.web.BookListResponse;
+import io.github.hrashk.books.api.books.web.BookPageResponse;
 import io.github.hrashk.books.api.books.web.BookResponse;
 import io.github.hrashk.books.api.books.web.UpsertRequest;
+import io.github.hrashk.books.api.common.CrudResult;
 import io.github.hrashk.books.api.exceptions.ErrorInfo;
 import io.github.hrashk.books.api.util.ControllerTest;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertAll;
 
@@ -18,11 +25,53 @@ public class BooksControllerTests extends ControllerTest {
 
     @Test
     void findAll() {
-        ResponseEntity<BookListResponse> response = rest.getForEntity(BOOKS_URL, BookListResponse.class);
+        ResponseEntity<BookPageResponse> response = rest.getForEntity(BOOKS_URL, BookPageResponse.class);
+
+        assertAll(
+                () -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK),
+                () -> assertThat(response.getBody().books()).hasSize(seeder.books().size()),
+                () -> assertThat(response.getBody().next()).isNull()
+        );
+    }
+
+    @Test
+    void findAllByPages() {
+        List<BookResponse> books = new ArrayList<>();
+        String next = null;
+
+        do {
+            ResponseEntity<BookPageResponse> response = next == null
+                    ? rest.getForEntity(BOOKS_URL + "?limit={l}", BookPageResponse.class, 3)
+                    : rest.getForEntity(BOOKS_URL + "?limit={l}&after={a}", BookPageResponse.class, 3, next);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getBody().books()).hasSizeLessThanOrEqualTo(3);
+
+            books.addAll(response.getBody().books());
+            next = response.getBody().next();
+        } while (next != null);
+
+        assertThat(books).extracting(BookResponse::id)
+                .hasSize(seeder.books().size())
+                .doesNotHaveDuplicates()
+                .isSorted();
+    }
+
+    @Test
+    void findAllWithInvalidCursor() {
+        ResponseEntity<ErrorInfo> response = rest.getForEntity(BOOKS_URL + "?after={a}", ErrorInfo.class, "@@@");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void streamAll() {
+        ResponseEntity<String> response = rest.getForEntity(BOOKS_URL + "/stream", String.class);
 
         assertAll(
                 () -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK),
-                () -> assertThat(response.getBody().books()).hasSize(seeder.books().size())
+                () -> assertThat(response.getBody().lines()).hasSize(seeder.books().size()),
+                () -> assertThat(response.getBody().lines()).allSatisfy(line -> assertThat(line).startsWith("{\"id\":"))
         );
     }
 
@@ -41,6 +90,75 @@ public class BooksControllerTests extends ControllerTest {
         );
     }
 
+    @Test
+    void findByCategoryIsNotModifiedUntilTheCategoryChanges() {
+        String category = seeder.books().get(0).getCategory().getName();
+        String url = BOOKS_URL + "/by-category?category={c}";
+
+        String eTag = rest.getForEntity(url, BookListResponse.class, category).getHeaders().getETag();
+        ResponseEntity<BookListResponse> unchanged = getIfNoneMatch(url, eTag, BookListResponse.class, category);
+
+        rest.postForEntity(BOOKS_URL, new UpsertRequest("t", "a", category), BookResponse.class);
+        ResponseEntity<BookListResponse> changed = getIfNoneMatch(url, eTag, BookListResponse.class, category);
+
+        assertAll(
+                () -> assertThat(eTag).isNotNull(),
+                () -> assertThat(unchanged.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED),
+                () -> assertThat(unchanged.getBody()).isNull(),
+                () -> assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK),
+                () -> assertThat(changed.getHeaders().getETag()).isNotEqualTo(eTag),
+                () -> assertThat(changed.getBody().books()).extracting(BookResponse::title).contains("t")
+        );
+    }
+
+    @Test
+    void searchByPages() {
+        var book = seeder.books().get(0);
+        String query = book.getAuthor();
+
+        ResponseEntity<BookPageResponse> first = rest.getForEntity(BOOKS_URL + "/search?q={q}&limit={l}",
+                BookPageResponse.class, query, 1);
+
+        assertAll(
+                () -> assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK),
+                () -> assertThat(first.getBody().books()).hasSize(1),
+                () -> assertThat(first.getBody().books().get(0).author()).isEqualTo(book.getAuthor())
+        );
+
+        if (first.getBody().next() != null) {
+            ResponseEntity<BookPageResponse> second = rest.getForEntity(BOOKS_URL + "/search?q={q}&limit={l}&after={a}",
+                    BookPageResponse.class, query, 1, first.getBody().next());
+
+            assertThat(second.getBody().books()).doesNotContainAnyElementsOf(first.getBody().books());
+        }
+    }
+
+    @Test
+    void searchWithoutWords() {
+        ResponseEntity<ErrorInfo> response = rest.getForEntity(BOOKS_URL + "/search?q={q}", ErrorInfo.class, "?!");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void quickSearchFollowsChanges() {
+        var book = seeder.books().get(0);
+        String url = BOOKS_URL + "/quick-search?q={q}&category={c}";
+
+        ResponseEntity<BookPageResponse> found = rest.getForEntity(url, BookPageResponse.class,
+                book.getTitle() + " " + book.getAuthor(), book.getCategory().getName());
+
+        assertThat(found.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(found.getBody().books()).extracting(BookResponse::id).contains(book.getId());
+
+        delete(BOOKS_ID_URL, book.getId());
+
+        ResponseEntity<BookPageResponse> deleted = rest.getForEntity(url, BookPageResponse.class,
+                book.getTitle() + " " + book.getAuthor(), book.getCategory().getName());
+
+        assertThat(deleted.getBody().books()).extracting(BookResponse::id).doesNotContain(book.getId());
+    }
+
     @Test
     void findByTitleAndAuthor() {
         var book = seeder.books().get(0);
@@ -159,6 +277,42 @@ public class BooksControllerTests extends ControllerTest {
         );
     }
 
+    @Test
+    void addBatch() {
+        var book = seeder.books().get(0);
+        List<UpsertRequest> requests = List.of(
+                new UpsertRequest(book.getTitle(), book.getAuthor(), "random-cat"),
+                new UpsertRequest("t", "a", book.getCategory().getName()),
+                new UpsertRequest("t", "a", "random-cat"));
+
+        ResponseEntity<BatchItemResponse[]> response = rest.postForEntity(BOOKS_URL + "/batch", requests,
+                BatchItemResponse[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        BatchItemResponse[] items = response.getBody();
+        assertAll(
+                () -> assertThat(items).extracting(BatchItemResponse::status).containsExactly(
+                        CrudResult.Status.FOUND, CrudResult.Status.CREATED, CrudResult.Status.FOUND),
+                () -> assertThat(items).allSatisfy(i -> assertThat(i.book()).hasNoNullFieldsOrProperties()),
+                () -> assertThat(items[0].book().id()).isEqualTo(book.getId()),
+                () -> assertThat(items[0].book().category()).isEqualTo("random-cat"),
+                () -> assertThat(items[2].book().id()).isEqualTo(items[1].book().id()),
+                () -> assertThat(items[2].book().category()).isEqualTo("random-cat")
+        );
+    }
+
+    @Test
+    void addBrokenBatch() {
+        List<UpsertRequest> requests = List.of(new UpsertRequest("t", "a", "c"), new UpsertRequest("", "a", "c"));
+
+        ResponseEntity<ErrorInfo> response = rest.postForEntity(BOOKS_URL + "/batch", requests, ErrorInfo.class);
+
+        assertAll(
+                () -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST),
+                () -> assertThat(response.getBody().message()).contains("title")
+        );
+    }
+
     @Test
     void updateAuthor() {
         var book = seeder.books().get(0);
@@ -173,6 +327,61 @@ public class BooksControllerTests extends ControllerTest {
         );
     }
 
+    @Test
+    void getByIdIsNotModifiedUntilTheBookChanges() {
+        var book = seeder.books().get(0);
+
+        String eTag = rest.getForEntity(BOOKS_ID_URL, BookResponse.class, book.getId()).getHeaders().getETag();
+        ResponseEntity<BookResponse> unchanged = getIfNoneMatch(BOOKS_ID_URL, eTag, BookResponse.class, book.getId());
+
+        put(BOOKS_ID_URL, new UpsertRequest(book.getTitle(), "asdf", book.getCategory().getName()),
+                BookResponse.class, book.getId());
+        ResponseEntity<BookResponse> changed = getIfNoneMatch(BOOKS_ID_URL, eTag, BookResponse.class, book.getId());
+
+        assertAll(
+                () -> assertThat(eTag).isNotNull(),
+                () -> assertThat(unchanged.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED),
+                () -> assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK),
+                () -> assertThat(changed.getHeaders().getETag()).isNotEqualTo(eTag),
+                () -> assertThat(changed.getBody().author()).isEqualTo("asdf")
+        );
+    }
+
+    /**
+     * The writes repeat their evictions after {@code second-eviction-delay}, the test waits longer than that.
+     */
+    @Test
+    void getByIdIsModifiedWhenTheBookChangesTwiceInARow() throws InterruptedException {
+        var book = seeder.books().get(0);
+
+        put(BOOKS_ID_URL, new UpsertRequest(book.getTitle(), "asdf", book.getCategory().getName()),
+                BookResponse.class, book.getId());
+        String eTag = rest.getForEntity(BOOKS_ID_URL, BookResponse.class, book.getId()).getHeaders().getETag();
+        put(BOOKS_ID_URL, new UpsertRequest(book.getTitle(), "qwer", book.getCategory().getName()),
+                BookResponse.class, book.getId());
+        TimeUnit.SECONDS.sleep(1);
+        ResponseEntity<BookResponse> changed = getIfNoneMatch(BOOKS_ID_URL, eTag, BookResponse.class, book.getId());
+
+        assertAll(
+                () -> assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK),
+                () -> assertThat(changed.getBody().author()).isEqualTo("qwer")
+        );
+    }
+
+    @Test
+    void getByIdIsNotFoundWhenTheBookIsDeletedRightAfterTheChange() throws InterruptedException {
+        var book = seeder.books().get(0);
+
+        put(BOOKS_ID_URL, new UpsertRequest(book.getTitle(), "asdf", book.getCategory().getName()),
+                BookResponse.class, book.getId());
+        String eTag = rest.getForEntity(BOOKS_ID_URL, BookResponse.class, book.getId()).getHeaders().getETag();
+        delete(BOOKS_ID_URL, book.getId());
+        TimeUnit.SECONDS.sleep(1);
+        ResponseEntity<ErrorInfo> deleted = getIfNoneMatch(BOOKS_ID_URL, eTag, ErrorInfo.class, book.getId());
+
+        assertThat(deleted.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
     @Test
     void updateCategory() {
         var book = seeder.books().get(0);
@@ -0,0 +1,72 @@
+package io.github.hrashk.books.api.books;
+
+import io.github.hrashk.books.api.books.web.BookListResponse;
+import io.github.hrashk.books.api.books.web.BookPageResponse;
+import io.github.hrashk.books.api.books.web.BookResponse;
+import io.github.hrashk.books.api.util.ControllerTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * The writes of these tests go straight to the database, past the service.
+ * The context is closed afterwards, so that the capture does not evict the caches of the other tests.
+ */
+@DirtiesContext
+@TestPropertySource(properties = {
+        "books-api.cdc.enabled=true",
+        "books-api.cdc.slot-name=books_api_test"
+})
+class ChangeDataCaptureControllerTests extends ControllerTest {
+    private static final String BY_CATEGORY_URL = "/api/v1/books/by-category?category={c}";
+    private static final String BY_TITLE_AND_AUTHOR_URL = "/api/v1/books/by-title-and-author?title={t}&author={a}";
+    private static final String QUICK_SEARCH_URL = "/api/v1/books/quick-search?q={q}&category={c}";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void awaitTheSlot() {
+        await().atMost(TIMEOUT).until(() -> jdbc.queryForList(
+                "select 1 from pg_replication_slots where slot_name = 'books_api_test' and active", Integer.class),
+                slots -> !slots.isEmpty());
+    }
+
+    @Test
+    void updatesEvictTheCaches() {
+        Book book = seeder.books().get(0);
+        String category = book.getCategory().getName();
+        rest.getForObject(BY_CATEGORY_URL, BookListResponse.class, category);
+        rest.getForObject(BY_TITLE_AND_AUTHOR_URL, BookResponse.class, book.getTitle(), book.getAuthor());
+
+        jdbc.update("update books set title = 'bulk fix', version = version + 1 where id = ?", book.getId());
+
+        await().atMost(TIMEOUT).untilAsserted(() -> assertThat(
+                rest.getForObject(BY_CATEGORY_URL, BookListResponse.class, category).books())
+                .extracting(BookResponse::title).contains("bulk fix").doesNotContain(book.getTitle()));
+        await().atMost(TIMEOUT).untilAsserted(() -> assertThat(rest.getForEntity(BY_TITLE_AND_AUTHOR_URL,
+                String.class, book.getTitle(), book.getAuthor()).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    void deletesReachTheQuickSearch() {
+        Book book = seeder.books().get(0);
+        String query = book.getTitle() + " " + book.getAuthor();
+
+        jdbc.update("delete from books where id = ?", book.getId());
+
+        await().atMost(TIMEOUT).untilAsserted(() -> assertThat(rest.getForObject(QUICK_SEARCH_URL,
+                BookPageResponse.class, query, book.getCategory().getName()).books())
+                .extracting(BookResponse::id).doesNotContain(book.getId()));
+    }
+}
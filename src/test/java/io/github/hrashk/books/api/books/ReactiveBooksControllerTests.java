@@ -0,0 +1,116 @@
+package io.github.hrashk.books.api.books;
+
+import io.github.hrashk.books.api.books.web.BookPageResponse;
+import io.github.hrashk.books.api.books.web.BookResponse;
+import io.github.hrashk.books.api.books.web.UpsertRequest;
+import io.github.hrashk.books.api.exceptions.ErrorInfo;
+import io.github.hrashk.books.api.util.ControllerTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+public class ReactiveBooksControllerTests extends ControllerTest {
+    private static final String BOOKS_URL = "/api/v1/reactive/books";
+    private static final String BOOKS_ID_URL = BOOKS_URL + "/{id}";
+
+    @Test
+    void findAllByPages() {
+        List<BookResponse> books = new ArrayList<>();
+        String next = null;
+
+        do {
+            ResponseEntity<BookPageResponse> response = next == null
+                    ? rest.getForEntity(BOOKS_URL + "?limit={l}", BookPageResponse.class, 3)
+                    : rest.getForEntity(BOOKS_URL + "?limit={l}&after={a}", BookPageResponse.class, 3, next);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+            books.addAll(response.getBody().books());
+            next = response.getBody().next();
+        } while (next != null);
+
+        assertThat(books).extracting(BookResponse::id)
+                .hasSize(seeder.books().size())
+                .doesNotHaveDuplicates()
+                .isSorted();
+    }
+
+    @Test
+    void findByCategory() {
+        String category = seeder.books().get(0).getCategory().getName();
+        long count = seeder.books().stream().filter(b -> b.getCategory().getName().equals(category)).count();
+
+        ResponseEntity<String> response = rest.getForEntity(BOOKS_URL + "/by-category?category={c}",
+                String.class, category);
+
+        assertAll(
+                () -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK),
+                () -> assertThat(response.getBody().lines()).hasSize((int) count),
+                () -> assertThat(response.getBody().lines()).allSatisfy(line ->
+                        assertThat(line).contains("\"category\":\"%s\"".formatted(category)))
+        );
+    }
+
+    @Test
+    void findByCategorySeesBlockingWrites() {
+        String category = seeder.books().get(0).getCategory().getName();
+        String before = rest.getForObject(BOOKS_URL + "/by-category?category={c}", String.class, category);
+
+        rest.postForEntity("/api/v1/books", new UpsertRequest("new title", "new author", category),
+                BookResponse.class);
+        String after = rest.getForObject(BOOKS_URL + "/by-category?category={c}", String.class, category);
+
+        assertThat(after.lines()).hasSize((int) before.lines().count() + 1);
+    }
+
+    @Test
+    void findByTitleAndAuthor() {
+        var book = seeder.books().get(0);
+
+        ResponseEntity<BookResponse> response = rest.getForEntity(BOOKS_URL
+                        + "/by-title-and-author?title={t}&author={a}",
+                BookResponse.class, book.getTitle(), book.getAuthor());
+
+        assertAll(
+                () -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK),
+                () -> assertThat(response.getBody()).hasNoNullFieldsOrProperties(),
+                () -> assertThat(response.getBody().title()).isEqualTo(book.getTitle()),
+                () -> assertThat(response.getBody().author()).isEqualTo(book.getAuthor())
+        );
+    }
+
+    @Test
+    void findMissingByTitleAndAuthor() {
+        ResponseEntity<ErrorInfo> response = rest.getForEntity(BOOKS_URL
+                        + "/by-title-and-author?title={t}&author={a}",
+                ErrorInfo.class, "ttt", "aaa");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void findById() {
+        var book = seeder.books().get(0);
+
+        ResponseEntity<BookResponse> response = rest.getForEntity(BOOKS_ID_URL, BookResponse.class, book.getId());
+
+        assertAll(
+                () -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK),
+                () -> assertThat(response.getBody().id()).isEqualTo(book.getId()),
+                () -> assertThat(response.getBody().category()).isEqualTo(book.getCategory().getName())
+        );
+    }
+
+    @Test
+    void findByInvalidId() {
+        ResponseEntity<ErrorInfo> response = rest.getForEntity(BOOKS_ID_URL, ErrorInfo.class, INVALID_ID);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
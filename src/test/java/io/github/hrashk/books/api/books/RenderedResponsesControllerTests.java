@@ -0,0 +1,106 @@
+package io.github.hrashk.books.api.books;
+
+import io.github.hrashk.books.api.books.web.BookListResponse;
+import io.github.hrashk.books.api.books.web.BookResponse;
+import io.github.hrashk.books.api.books.web.UpsertRequest;
+import io.github.hrashk.books.api.exceptions.ErrorInfo;
+import io.github.hrashk.books.api.util.ControllerTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@TestPropertySource(properties = {
+        "books-api.rendered-responses.enabled=true",
+        "books-api.rendered-responses.gzip=true"
+})
+class RenderedResponsesControllerTests extends ControllerTest {
+    private static final String BY_CATEGORY_URL = "/api/v1/books/by-category?category={c}";
+    private static final String BY_TITLE_AND_AUTHOR_URL = "/api/v1/books/by-title-and-author?title={t}&author={a}";
+
+    @Test
+    void findByCategoryFollowsChanges() {
+        String category = seeder.books().get(0).getCategory().getName();
+        int size = rest.getForObject(BY_CATEGORY_URL, BookListResponse.class, category).books().size();
+
+        rest.postForEntity("/api/v1/books", new UpsertRequest("t", "a", category), BookResponse.class);
+        ResponseEntity<BookListResponse> response = rest.getForEntity(BY_CATEGORY_URL, BookListResponse.class,
+                category);
+
+        assertAll(
+                () -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK),
+                () -> assertThat(response.getHeaders().getETag()).isNotNull(),
+                () -> assertThat(response.getBody().books()).hasSize(size + 1),
+                () -> assertThat(response.getBody().books()).extracting(BookResponse::title).contains("t")
+        );
+    }
+
+    @Test
+    void findByTitleAndAuthorFollowsChanges() {
+        var book = seeder.books().get(0);
+        rest.getForObject(BY_TITLE_AND_AUTHOR_URL, BookResponse.class, book.getTitle(), book.getAuthor());
+
+        put("/api/v1/books/{id}", new UpsertRequest(book.getTitle(), book.getAuthor(), "new category"),
+                BookResponse.class, book.getId());
+        ResponseEntity<BookResponse> response = rest.getForEntity(BY_TITLE_AND_AUTHOR_URL, BookResponse.class,
+                book.getTitle(), book.getAuthor());
+
+        assertAll(
+                () -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK),
+                () -> assertThat(response.getBody().id()).isEqualTo(book.getId()),
+                () -> assertThat(response.getBody().category()).isEqualTo("new category")
+        );
+    }
+
+    @Test
+    void findMissingByTitleAndAuthor() {
+        ResponseEntity<ErrorInfo> response = rest.getForEntity(BY_TITLE_AND_AUTHOR_URL, ErrorInfo.class, "ttt", "aaa");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void compressedForTheClientsAcceptingGzip() throws IOException {
+        var book = seeder.books().get(0);
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        ResponseEntity<byte[]> response = rest.exchange(BY_TITLE_AND_AUTHOR_URL, HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class, book.getTitle(), book.getAuthor());
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gunzip(response.getBody())).contains("\"id\":" + book.getId());
+    }
+
+    @Test
+    void plainForTheClientsRefusingGzip() {
+        var book = seeder.books().get(0);
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate, x-gzipped");
+
+        ResponseEntity<String> response = rest.exchange(BY_TITLE_AND_AUTHOR_URL, HttpMethod.GET,
+                new HttpEntity<>(headers), String.class, book.getTitle(), book.getAuthor());
+
+        assertAll(
+                () -> assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull(),
+                () -> assertThat(response.getBody()).contains("\"id\":" + book.getId())
+        );
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.hrashk.books.api.books;
+
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchTermsTest {
+    @Test
+    void wordsBecomePrefixes() {
+        SearchTerms terms = SearchTerms.parse("  Harry   POT ");
+
+        assertThat(terms.text()).isEqualTo("harry pot");
+        assertThat(terms.tsQuery()).isEqualTo("harry:* & pot:*");
+    }
+
+    @Test
+    void operatorsAreDropped() {
+        SearchTerms terms = SearchTerms.parse("war & !peace | (tolstoy):*");
+
+        assertThat(terms).isEqualTo(SearchTerms.parse("War Peace Tolstoy"));
+    }
+
+    @Test
+    void queryWithoutWordsIsRejected() {
+        assertThatThrownBy(() -> SearchTerms.parse("&& !"))
+                .isInstanceOf(ValidationException.class);
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.hrashk.books.api.books.search;
+
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.books.SearchTerms;
+import io.github.hrashk.books.api.categories.Category;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookIndexTest {
+    private final Category fantasy = new Category(1L, "Fantasy");
+    private final Category classic = new Category(2L, "Classic");
+    private final BookIndex index = new BookIndex();
+
+    @BeforeEach
+    void setUp() {
+        index.put(new Book(1L, "The Lord of the Rings", "J.R.R. Tolkien", fantasy));
+        index.put(new Book(2L, "The Hobbit", "J.R.R. Tolkien", fantasy));
+        index.put(new Book(3L, "War and Peace", "Leo Tolstoy", classic));
+    }
+
+    @Test
+    void matchesWordPrefixesOfTitleAndAuthor() {
+        assertThat(ids(search("tol lord"))).containsExactly(1L);
+        assertThat(ids(search("tol"))).containsExactly(1L, 2L, 3L);
+        assertThat(ids(search("tolstoy peace"))).containsExactly(3L);
+        assertThat(ids(search("tolkien peace"))).isEmpty();
+    }
+
+    @Test
+    void filtersByCategory() {
+        assertThat(ids(index.search(SearchTerms.parse("tol"), "Classic", 0, 10))).containsExactly(3L);
+        assertThat(ids(index.search(SearchTerms.parse("tol"), "Poetry", 0, 10))).isEmpty();
+    }
+
+    @Test
+    void pagesWithOffsetAndLimit() {
+        assertThat(ids(index.search(SearchTerms.parse("t"), null, 1, 1))).containsExactly(2L);
+    }
+
+    @Test
+    void replacesModifiedBooks() {
+        index.put(new Book(2L, "The Silmarillion", "J.R.R. Tolkien", fantasy));
+
+        assertThat(search("hobbit")).isEmpty();
+        assertThat(search("silm")).singleElement()
+                .satisfies(b -> assertThat(b.getTitle()).isEqualTo("The Silmarillion"));
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void forgetsRemovedBooks() {
+        index.remove(1L);
+        index.remove(42L);
+
+        assertThat(ids(search("tolkien"))).containsExactly(2L);
+        assertThat(index.statistics().deleted()).isEqualTo(1);
+    }
+
+    @Test
+    void compactsOnceHalfOfTheDocumentsAreDeleted() {
+        for (long id = 100; id < 2100; id++)
+            index.put(new Book(id, "Volume " + id, "Anonymous", classic));
+        for (long id = 100; id < 2100; id += 2)
+            index.put(new Book(id, "Revised volume " + id, "Anonymous", classic));
+        for (long id = 101; id < 2100; id += 2)
+            index.remove(id);
+
+        BookIndex.Statistics statistics = index.statistics();
+
+        assertThat(statistics.deleted()).isLessThan(statistics.documents());
+        assertThat(index.size()).isEqualTo(1003);
+        assertThat(search("revised")).hasSize(10);
+        assertThat(search("volume 1000")).singleElement()
+                .satisfies(b -> assertThat(b.getTitle()).isEqualTo("Revised volume 1000"));
+    }
+
+    private List<Book> search(String query) {
+        return index.search(SearchTerms.parse(query), null, 0, 10);
+    }
+
+    private static List<Long> ids(List<Book> books) {
+        return books.stream().map(Book::getId).toList();
+    }
+}
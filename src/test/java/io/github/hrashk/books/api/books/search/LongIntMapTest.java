@@ -0,0 +1,33 @@
+package io.github.hrashk.books.api.books.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongIntMapTest {
+    @Test
+    void behavesAsHashMap() {
+        var map = new LongIntMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        var random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(5_000) - 2_500;
+
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertThat(map.remove(key)).isEqualTo(removed == null ? LongIntMap.MISSING : removed);
+            } else {
+                Integer previous = expected.put(key, i);
+                assertThat(map.put(key, i)).isEqualTo(previous == null ? LongIntMap.MISSING : previous);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+    }
+}
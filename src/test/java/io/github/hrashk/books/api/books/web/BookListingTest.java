@@ -0,0 +1,32 @@
+package io.github.hrashk.books.api.books.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.categories.Category;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookListingTest {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final BookMapper mapper = new BookMapperImpl();
+
+    @Test
+    void writesTheFormatOfBookListResponse() throws Exception {
+        List<Book> books = List.of(
+                new Book(1L, "The \"Hobbit\"", "J.R.R. Tolkien", new Category(2L, "Fantasy")),
+                new Book(3L, "Война и мир", "Лев Толстой", new Category(4L, "Classic")),
+                new Book(null, "title", null, null));
+
+        assertThat(objectMapper.writeValueAsString(new BookListing(books)))
+                .isEqualTo(objectMapper.writeValueAsString(mapper.wrap(books)));
+    }
+
+    @Test
+    void writesAnEmptyList() throws Exception {
+        assertThat(objectMapper.writeValueAsString(new BookListing(List.of()))).isEqualTo("{\"books\":[]}");
+    }
+}
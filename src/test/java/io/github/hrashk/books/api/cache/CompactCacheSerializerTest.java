@@ -0,0 +1,100 @@
+package io.github.hrashk.books.api.cache;
+
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.categories.Category;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class CompactCacheSerializerTest {
+    private final CompactCacheSerializer serializer = new CompactCacheSerializer();
+
+    @Test
+    void book() {
+        Book book = new Book(1L, "title", "author", new Category(2L, "category"), 3L);
+
+        assertThat(roundTrip(book)).usingRecursiveComparison().isEqualTo(book);
+    }
+
+    @Test
+    void bookWithNulls() {
+        Book book = new Book(null, "title", null, null);
+
+        assertThat(roundTrip(book)).isEqualTo(book);
+    }
+
+    @Test
+    void category() {
+        Category category = new Category(2L, "Кириллица");
+
+        assertThat(roundTrip(category)).isEqualTo(category);
+    }
+
+    @Test
+    void lists() {
+        List<Book> books = sampleBooks(100);
+        List<Category> categories = List.of(new Category(1L, "a"), new Category(300L, "b"));
+
+        assertAll(
+                () -> assertThat(roundTrip(books)).isEqualTo(books),
+                () -> assertThat(roundTrip(categories)).isEqualTo(categories),
+                () -> assertThat(roundTrip(List.of())).isEqualTo(List.of())
+        );
+    }
+
+    @Test
+    void bytesAreStoredAsTheyAre() {
+        byte[] json = "{\"books\":[]}".getBytes(StandardCharsets.UTF_8);
+
+        assertAll(
+                () -> assertThat(serializer.serialize(json)).hasSize(json.length + 2),
+                () -> assertThat(roundTrip(json)).isEqualTo(json)
+        );
+    }
+
+    @Test
+    void otherValuesFallBack() {
+        assertAll(
+                () -> assertThat(roundTrip("string")).isEqualTo("string"),
+                () -> assertThat(roundTrip(List.of(1L, 2L))).isEqualTo(List.of(1L, 2L)),
+                () -> assertThat(roundTrip(null)).isNull()
+        );
+    }
+
+    @Test
+    void otherFormatVersionsAreMisses() {
+        byte[] bytes = serializer.serialize("string");
+        bytes[0]--;
+
+        assertThat(serializer.deserialize(bytes)).isNull();
+    }
+
+    @Test
+    void isSmallerThanJdkAndJson() {
+        List<Book> books = sampleBooks(1000);
+        int compact = serializer.serialize(books).length;
+
+        assertAll(
+                () -> assertThat(compact).isLessThan(RedisSerializer.java().serialize(books).length / 2),
+                () -> assertThat(compact).isLessThan(RedisSerializer.json().serialize(books).length / 2)
+        );
+    }
+
+    private Object roundTrip(Object value) {
+        return serializer.deserialize(serializer.serialize(value));
+    }
+
+    static List<Book> sampleBooks(int count) {
+        Category category = new Category(7L, "Fantasy");
+
+        return LongStream.range(0, count)
+                .mapToObj(i -> new Book(1000 + i, "Title " + i, "Author " + i % 10, category))
+                .toList();
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.hrashk.books.api.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.Mockito.mock;
+
+class TwoTierCacheMeterBinderTest {
+    @Test
+    void publishesCacheMeters() {
+        var cache = new TwoTierCache("books", Caffeine.newBuilder().maximumSize(10).build(),
+                new ConcurrentMapCache("books"), CacheCoordinator.LOCAL, mock(CacheInvalidationPublisher.class),
+                Duration.ofSeconds(1), 0, Runnable::run);
+        var registry = new SimpleMeterRegistry();
+        new TwoTierCacheMeterBinder(cache, Tags.empty()).bindTo(registry);
+
+        cache.get("key", () -> "loaded");
+        cache.get("key", () -> "reloaded");
+
+        assertAll(
+                () -> assertThat(registry.get("cache.gets").tags("cache", "books", "result", "hit")
+                        .functionCounter().count()).isEqualTo(1),
+                () -> assertThat(registry.get("cache.gets").tags("cache", "books", "result", "miss")
+                        .functionCounter().count()).isEqualTo(1),
+                () -> assertThat(registry.get("cache.loads").tags("cache", "books")
+                        .functionTimer().count()).isEqualTo(1),
+                () -> assertThat(registry.get("cache.remote.calls").tags("cache", "books", "operation", "get")
+                        .functionTimer().count()).isEqualTo(1),
+                () -> assertThat(registry.get("cache.remote.calls").tags("cache", "books", "operation", "put")
+                        .functionTimer().count()).isEqualTo(1),
+                () -> assertThat(registry.get("cache.size").gauge().value()).isEqualTo(1)
+        );
+    }
+}
@@ -0,0 +1,249 @@
+package io.github.hrashk.books.api.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TwoTierCacheTest {
+    private ConcurrentMapCache remote;
+    private CacheCoordinator coordinator;
+    private CacheInvalidationPublisher publisher;
+    private List<Runnable> refreshes;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = new ConcurrentMapCache("books");
+        coordinator = mock(CacheCoordinator.class);
+        publisher = mock(CacheInvalidationPublisher.class);
+        refreshes = new ArrayList<>();
+        cache = new TwoTierCache("books", Caffeine.newBuilder().maximumSize(10).build(), remote,
+                coordinator, publisher, Duration.ofSeconds(1), 1.0, refreshes::add);
+
+        when(coordinator.tryLease(any(), any())).thenReturn("token");
+        when(coordinator.expiresIn(any())).thenReturn(null);
+    }
+
+    @Test
+    void readsThroughToRemote() {
+        remote.put("key", "value");
+
+        assertAll(
+                () -> assertThat(cache.get("key", String.class)).isEqualTo("value"),
+                () -> assertThat(cache.get("missing")).isNull()
+        );
+    }
+
+    @Test
+    void servesLocalCopyWithoutRemote() {
+        remote.put("key", "value");
+        cache.get("key");
+
+        remote.clear();
+
+        assertThat(cache.get("key", String.class)).isEqualTo("value");
+    }
+
+    @Test
+    void putWritesBothTiers() {
+        cache.put("key", "value");
+
+        remote.clear();
+
+        assertThat(cache.get("key", String.class)).isEqualTo("value");
+    }
+
+    @Test
+    void putIfAbsentKeepsTheRemoteValue() {
+        remote.put("key", "newer");
+
+        Cache.ValueWrapper existing = cache.putIfAbsent("key", "older");
+
+        assertAll(
+                () -> assertThat(existing).isNotNull(),
+                () -> assertThat(remote.get("key", String.class)).isEqualTo("newer"),
+                () -> assertThat(cache.get("key", String.class)).isEqualTo("newer")
+        );
+    }
+
+    @Test
+    void evictClearsBothTiersAndNotifiesOtherNodes() {
+        cache.put("key", "value");
+
+        cache.evict("key");
+
+        assertAll(
+                () -> assertThat(cache.get("key")).isNull(),
+                () -> assertThat(remote.get("key")).isNull()
+        );
+        verify(publisher).publish("books", "key");
+    }
+
+    @Test
+    void localEvictionKeepsRemoteCopy() {
+        cache.put("key", "value");
+
+        cache.evictLocal("key");
+
+        assertAll(
+                () -> assertThat(remote.get("key", String.class)).isEqualTo("value"),
+                () -> assertThat(cache.get("key", String.class)).isEqualTo("value")
+        );
+    }
+
+    @Test
+    void loaderResultIsCachedInBothTiers() {
+        String value = cache.get("key", () -> "loaded");
+
+        assertAll(
+                () -> assertThat(value).isEqualTo("loaded"),
+                () -> assertThat(remote.get("key", String.class)).isEqualTo("loaded"),
+                () -> assertThat(cache.get("key", () -> "reloaded")).isEqualTo("loaded")
+        );
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        var loads = new AtomicInteger();
+        var start = new CountDownLatch(1);
+
+        var executor = Executors.newFixedThreadPool(8);
+
+        try {
+            var results = new CompletableFuture<?>[8];
+
+            for (int i = 0; i < results.length; i++)
+                results[i] = CompletableFuture.supplyAsync(() -> {
+                    await(start);
+                    return cache.get("key", () -> {
+                        loads.incrementAndGet();
+                        Thread.sleep(100);
+                        return "loaded";
+                    });
+                }, executor);
+
+            start.countDown();
+            CompletableFuture.allOf(results).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void waitsForTheLeaseHolderInsteadOfLoading() {
+        when(coordinator.tryLease(any(), any())).thenReturn(null);
+        CompletableFuture.runAsync(() -> {
+            sleep(50);
+            remote.put("key", "loaded elsewhere");
+        });
+
+        String value = cache.get("key", () -> "loaded here");
+
+        assertThat(value).isEqualTo("loaded elsewhere");
+        verify(coordinator, never()).release(any(), any());
+    }
+
+    @Test
+    void loadsAndReleasesTheLease() {
+        cache.get("key", () -> "loaded");
+
+        verify(coordinator).release("key", "token");
+    }
+
+    @Test
+    void refreshesEarlyInTheBackgroundWhenTheRemoteCopyIsAboutToExpire() {
+        when(coordinator.expiresIn("key")).thenReturn(Duration.ZERO);
+        cache.get("key", () -> "first");
+
+        assertThat(cache.get("key", () -> "second")).as("Before the refresh").isEqualTo("first");
+        assertThat(cache.get("key", () -> "third")).as("While refreshing").isEqualTo("first");
+        assertThat(refreshes).hasSize(1);
+
+        refreshes.remove(0).run();
+
+        assertThat(cache.get("key", () -> "fourth")).as("After the refresh").isEqualTo("second");
+    }
+
+    @Test
+    void keepsTheValueWhenTheRefreshFails() {
+        when(coordinator.expiresIn("key")).thenReturn(Duration.ZERO);
+        cache.get("key", () -> "first");
+
+        cache.get("key", () -> {
+            throw new IllegalStateException("boom");
+        });
+        refreshes.remove(0).run();
+
+        assertThat(cache.get("key", () -> "second")).isEqualTo("first");
+    }
+
+    @Test
+    void keepsTheValueWhileTheRemoteCopyIsFresh() {
+        when(coordinator.expiresIn("key")).thenReturn(Duration.ofHours(1));
+        cache.get("key", () -> "first");
+
+        assertThat(cache.get("key", () -> "second")).isEqualTo("first");
+    }
+
+    @Test
+    void loaderFailureIsReported() {
+        assertThatThrownBy(() -> cache.get("key", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(Cache.ValueRetrievalException.class).hasRootCauseMessage("boom");
+    }
+
+    @Test
+    void countsHitsMissesAndLoads() {
+        cache.get("key", () -> "loaded");
+        cache.get("key", () -> "reloaded");
+        cache.get("other");
+        cache.evict("key");
+
+        TwoTierCache.Statistics statistics = cache.getStatistics();
+
+        assertAll(
+                () -> assertThat(statistics.hits()).isEqualTo(1),
+                () -> assertThat(statistics.misses()).isEqualTo(2),
+                () -> assertThat(statistics.loads()).isEqualTo(1),
+                () -> assertThat(statistics.puts()).isEqualTo(1),
+                () -> assertThat(statistics.evictions()).isEqualTo(1)
+        );
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.hrashk.books.api.categories;
+
+import io.github.hrashk.books.api.util.ServiceTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@Import(CategoryService.class)
+class CategoryServiceTest extends ServiceTest {
+    @Autowired
+    private CategoryService service;
+
+    @Autowired
+    private CategoryRepository repository;
+
+    @Test
+    void getExisting() {
+        Category category = seeder.categories().get(0);
+
+        assertThat(service.getOrAdd(category.getName())).isEqualTo(category);
+    }
+
+    @Test
+    void addOnce() {
+        Category added = service.getOrAdd("new category");
+        Category again = service.getOrAdd("new category");
+
+        assertAll(
+                () -> assertThat(added.getId()).isNotNull(),
+                () -> assertThat(again).isEqualTo(added),
+                () -> assertThat(repository.count()).isEqualTo(seeder.categories().size() + 1)
+        );
+    }
+
+    @Test
+    void insertIfAbsentIgnoresDuplicates() {
+        String name = seeder.categories().get(0).getName();
+
+        assertAll(
+                () -> assertThat(repository.insertIfAbsent(name)).isZero(),
+                () -> assertThat(repository.insertIfAbsent("new category")).isOne(),
+                () -> assertThat(repository.insertIfAbsent("new category")).isZero()
+        );
+    }
+
+    @Test
+    void insertAllIfAbsentIgnoresDuplicates() {
+        String name = seeder.categories().get(0).getName();
+
+        assertAll(
+                () -> assertThat(repository.insertAllIfAbsent(new String[]{name, "new category", "newer category"}))
+                        .isEqualTo(2),
+                () -> assertThat(repository.insertAllIfAbsent(new String[]{"new category"})).isZero(),
+                () -> assertThat(repository.findByName("newer category")).isPresent()
+        );
+    }
+
+    @Test
+    void getOrAddAll() {
+        Category existing = seeder.categories().get(0);
+
+        Map<String, Category> categories = service.getOrAddAll(List.of(existing.getName(), "new", "new"));
+
+        assertAll(
+                () -> assertThat(categories).containsOnlyKeys(existing.getName(), "new"),
+                () -> assertThat(categories.get(existing.getName())).isEqualTo(existing),
+                () -> assertThat(categories.get("new").getId()).isNotNull()
+        );
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.hrashk.books.api.cdc;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PgOutputDecoderTest {
+    private static final int BOOKS = 16400;
+
+    private final PgOutputDecoder decoder = new PgOutputDecoder();
+
+    @BeforeEach
+    void describeTheBooks() throws IOException {
+        assertThat(decoder.decode(message(out -> {
+            out.writeByte('R');
+            out.writeInt(BOOKS);
+            writeString(out, "books_schema");
+            writeString(out, "books");
+            out.writeByte('f');
+            out.writeShort(3);
+            writeColumn(out, "id");
+            writeColumn(out, "title");
+            writeColumn(out, "author");
+        }))).isEmpty();
+    }
+
+    @Test
+    void insert() throws IOException {
+        assertThat(decoder.decode(message(out -> {
+            out.writeByte('I');
+            out.writeInt(BOOKS);
+            out.writeByte('N');
+            writeTuple(out, "1", "Война и мир", null);
+        }))).containsExactly(new RowChange("books", RowChange.Operation.INSERT, Map.of(),
+                row("1", "Война и мир", null)));
+    }
+
+    @Test
+    void updateWithTheOldRow() throws IOException {
+        assertThat(decoder.decode(message(out -> {
+            out.writeByte('U');
+            out.writeInt(BOOKS);
+            out.writeByte('O');
+            writeTuple(out, "1", "old title", "author");
+            out.writeByte('N');
+            writeTuple(out, "1", "new title", "author");
+        }))).containsExactly(new RowChange("books", RowChange.Operation.UPDATE,
+                row("1", "old title", "author"), row("1", "new title", "author")));
+    }
+
+    @Test
+    void delete() throws IOException {
+        assertThat(decoder.decode(message(out -> {
+            out.writeByte('D');
+            out.writeInt(BOOKS);
+            out.writeByte('O');
+            writeTuple(out, "1", "title", "author");
+        }))).containsExactly(new RowChange("books", RowChange.Operation.DELETE,
+                row("1", "title", "author"), Map.of()));
+    }
+
+    @Test
+    void truncate() throws IOException {
+        assertThat(decoder.decode(message(out -> {
+            out.writeByte('T');
+            out.writeInt(1);
+            out.writeByte(0);
+            out.writeInt(BOOKS);
+        }))).containsExactly(new RowChange("books", RowChange.Operation.TRUNCATE, Map.of(), Map.of()));
+    }
+
+    @Test
+    void beginAndCommitChangeNothing() throws IOException {
+        assertThat(decoder.decode(message(out -> {
+            out.writeByte('B');
+            out.writeLong(100);
+            out.writeLong(0);
+            out.writeInt(1);
+        }))).isEmpty();
+        assertThat(decoder.decode(message(out -> {
+            out.writeByte('C');
+            out.writeByte(0);
+            out.writeLong(100);
+            out.writeLong(120);
+            out.writeLong(0);
+        }))).isEmpty();
+    }
+
+    @Test
+    void changesOfUndescribedRelationsAreRejected() {
+        assertThatThrownBy(() -> decoder.decode(message(out -> {
+            out.writeByte('I');
+            out.writeInt(BOOKS + 1);
+        }))).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static Map<String, String> row(String id, String title, String author) {
+        var row = new HashMap<String, String>();
+        row.put("id", id);
+        row.put("title", title);
+        row.put("author", author);
+
+        return row;
+    }
+
+    private static ByteBuffer message(Writer writer) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+
+        try (var out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        }
+
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static void writeColumn(DataOutputStream out, String name) throws IOException {
+        out.writeByte(1);
+        writeString(out, name);
+        out.writeInt(25);
+        out.writeInt(-1);
+    }
+
+    private static void writeTuple(DataOutputStream out, String... values) throws IOException {
+        out.writeShort(values.length);
+
+        for (String value : values) {
+            if (value == null) {
+                out.writeByte('n');
+            } else {
+                byte[] text = value.getBytes(StandardCharsets.UTF_8);
+                out.writeByte('t');
+                out.writeInt(text.length);
+                out.write(text);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.write(value.getBytes(StandardCharsets.UTF_8));
+        out.writeByte(0);
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
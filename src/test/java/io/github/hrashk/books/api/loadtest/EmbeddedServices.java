@@ -0,0 +1,70 @@
+package io.github.hrashk.books.api.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.stream.Stream;
+
+/**
+ * In-process stand-ins for the Postgres and Redis instances the app expects, so that no Docker is needed.
+ */
+final class EmbeddedServices implements AutoCloseable {
+    private final EmbeddedPostgres postgres;
+    private final RedisServer redis;
+    private final int redisPort;
+
+    private EmbeddedServices(EmbeddedPostgres postgres, RedisServer redis, int redisPort) {
+        this.postgres = postgres;
+        this.redis = redis;
+        this.redisPort = redisPort;
+    }
+
+    static EmbeddedServices start() throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.start();
+
+        int redisPort = freePort();
+        RedisServer redis = new RedisServer(redisPort);
+        redis.start();
+
+        return new EmbeddedServices(postgres, redis, redisPort);
+    }
+
+    /**
+     * @return the command line arguments pointing the app to the services followed by the extra ones.
+     * Unlike default properties, they take precedence over application.yml.
+     */
+    String[] arguments(String... extra) {
+        return Stream.concat(Stream.of(
+                "--spring.datasource.url=%s&currentSchema=books_schema&reWriteBatchedInserts=true"
+                        .formatted(postgres.getJdbcUrl("postgres", "postgres")),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.r2dbc.url=r2dbc:postgresql://localhost:%d/postgres?schema=books_schema"
+                        .formatted(postgres.getPort()),
+                "--spring.r2dbc.username=postgres",
+                "--spring.r2dbc.password=",
+                "--spring.data.redis.host=localhost",
+                "--spring.data.redis.port=" + redisPort
+        ), Stream.of(extra)).toArray(String[]::new);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            redis.stop();
+        } finally {
+            postgres.close();
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package io.github.hrashk.books.api.loadtest;
+
+import io.github.hrashk.books.api.books.Book;
+import io.github.hrashk.books.api.categories.Category;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop clients sending a mix of category listings and upserts.
+ * Every request is timed per endpoint; responses with an error status are counted separately.
+ */
+final class LoadGenerator {
+    static final String BY_CATEGORY = "GET /api/v1/books/by-category";
+    static final String UPSERT = "POST /api/v1/books";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final URI baseUri;
+    private final LoadTestSettings settings;
+    private final List<Category> categories;
+    private final List<Book> books;
+    private final AtomicLong newBooks = new AtomicLong();
+
+    LoadGenerator(URI baseUri, LoadTestSettings settings, List<Category> categories, List<Book> books) {
+        this.baseUri = baseUri;
+        this.settings = settings;
+        this.categories = categories;
+        this.books = books;
+    }
+
+    /**
+     * Runs the clients for the given time and records the requests into the registry.
+     */
+    void run(Duration duration, MeterRegistry registry) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+
+            for (int i = 0; i < settings.clients(); i++)
+                clients.add(executor.submit(() -> loop(deadline, registry)));
+
+            for (Future<?> c : clients)
+                c.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private Void loop(long deadline, MeterRegistry registry) throws IOException, InterruptedException {
+        var random = ThreadLocalRandom.current();
+
+        while (System.nanoTime() < deadline) {
+            boolean write = random.nextDouble() < settings.writeRatio();
+            String endpoint = write ? UPSERT : BY_CATEGORY;
+            HttpRequest request = write ? upsert(random) : byCategory(random);
+
+            long start = System.nanoTime();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            long elapsed = System.nanoTime() - start;
+
+            Timer.builder("load.requests")
+                    .tag("endpoint", endpoint)
+                    .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                    .register(registry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+
+            if (response.statusCode() >= 400)
+                registry.counter("load.errors", "endpoint", endpoint).increment();
+        }
+
+        return null;
+    }
+
+    private HttpRequest byCategory(ThreadLocalRandom random) {
+        String category = categories.get(random.nextInt(categories.size())).getName();
+
+        return HttpRequest.newBuilder(baseUri.resolve("/api/v1/books/by-category?category="
+                        + URLEncoder.encode(category, StandardCharsets.UTF_8)))
+                .GET()
+                .build();
+    }
+
+    /**
+     * Half of the upserts modify a seeded book, the other half add a new one.
+     */
+    private HttpRequest upsert(ThreadLocalRandom random) {
+        String category = categories.get(random.nextInt(categories.size())).getName();
+        String title;
+        String author;
+
+        if (random.nextBoolean()) {
+            Book book = books.get(random.nextInt(books.size()));
+            title = book.getTitle();
+            author = book.getAuthor();
+        } else {
+            title = "Load test book " + newBooks.incrementAndGet();
+            author = "Load Tester";
+        }
+
+        String body = """
+                {"title": "%s", "author": "%s", "category": "%s"}"""
+                .formatted(escape(title), escape(author), escape(category));
+
+        return HttpRequest.newBuilder(baseUri.resolve("/api/v1/books"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
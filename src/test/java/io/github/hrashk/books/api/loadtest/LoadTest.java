@@ -0,0 +1,79 @@
+package io.github.hrashk.books.api.loadtest;
+
+import io.github.hrashk.books.api.BooksApiApplication;
+import io.github.hrashk.books.api.util.DataSeeder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the app against {@link EmbeddedServices}, seeds it at scale with the {@link DataSeeder}
+ * and reports the latency percentiles and throughput of a request mix per endpoint.
+ * <p>
+ * Run with {@code ./mvnw -P load-test test}, the {@link LoadTestSettings} are passed as {@code -Dload.*} properties.
+ */
+public class LoadTest {
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        report(run(settings), settings);
+    }
+
+    /**
+     * @return the registry with the measurements
+     */
+    static SimpleMeterRegistry run(LoadTestSettings settings) throws Exception {
+        try (EmbeddedServices services = EmbeddedServices.start();
+             ConfigurableApplicationContext app = new SpringApplicationBuilder(BooksApiApplication.class, DataSeeder.class)
+                     .properties("server.port=0", "logging.level.root=warn")
+                     .run(services.arguments("--spring.threads.virtual.enabled=" + settings.virtualThreads()))) {
+            DataSeeder seeder = app.getBean(DataSeeder.class);
+            System.out.printf("Seeding %d books in %d categories%n", settings.books(), settings.categories());
+            seeder.seedAtScale(settings.categories(), settings.books());
+
+            URI baseUri = URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port"));
+            var generator = new LoadGenerator(baseUri, settings, seeder.categories(), seeder.books());
+
+            System.out.printf("Warming up for %s with %d clients%n", settings.warmup(), settings.clients());
+            generator.run(settings.warmup(), new SimpleMeterRegistry());
+
+            System.out.printf("Measuring for %s%n", settings.duration());
+            var registry = new SimpleMeterRegistry();
+            generator.run(settings.duration(), registry);
+
+            return registry;
+        }
+    }
+
+    static void report(SimpleMeterRegistry registry, LoadTestSettings settings) {
+        double seconds = settings.duration().toMillis() / 1000.0;
+
+        System.out.printf("%n%-32s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        registry.find("load.requests").timers().stream()
+                .sorted(Comparator.comparing(t -> t.getId().getTag("endpoint")))
+                .forEach(timer -> {
+                    String endpoint = timer.getId().getTag("endpoint");
+                    Counter errors = registry.find("load.errors").tag("endpoint", endpoint).counter();
+
+                    System.out.printf("%-32s %10d %8d %10.1f", endpoint, timer.count(),
+                            errors == null ? 0 : (long) errors.count(), timer.count() / seconds);
+
+                    for (ValueAtPercentile p : timer.takeSnapshot().percentileValues())
+                        System.out.printf(" %9.2f", p.value(TimeUnit.MILLISECONDS));
+
+                    System.out.printf(" %9.2f%n", timer.max(TimeUnit.MILLISECONDS));
+                });
+
+        long total = registry.find("load.requests").timers().stream().mapToLong(Timer::count).sum();
+        System.out.printf("%-32s %10d %8s %10.1f%n", "total", total, "", total / seconds);
+    }
+}
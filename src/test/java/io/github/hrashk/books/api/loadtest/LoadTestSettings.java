@@ -0,0 +1,33 @@
+package io.github.hrashk.books.api.loadtest;
+
+import java.time.Duration;
+
+/**
+ * The knobs of a load test run, read from the {@code load.*} system properties.
+ *
+ * @param books          how many books to seed
+ * @param categories     how many categories to spread the books over
+ * @param clients        how many concurrent clients send requests, each waiting for a response before the next one
+ * @param warmup         how long to run before measuring
+ * @param duration       how long to measure
+ * @param writeRatio     the share of upserts among the requests, the rest are category listings
+ * @param virtualThreads whether the app serves the requests on virtual threads
+ */
+public record LoadTestSettings(int books, int categories, int clients,
+                               Duration warmup, Duration duration, double writeRatio, boolean virtualThreads) {
+
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("load.books", 100_000),
+                Integer.getInteger("load.categories", 100),
+                Integer.getInteger("load.clients", 32),
+                Duration.parse(System.getProperty("load.warmup", "PT10S")),
+                Duration.parse(System.getProperty("load.duration", "PT30S")),
+                Double.parseDouble(System.getProperty("load.write-ratio", "0.1")),
+                Boolean.getBoolean("load.virtual-threads"));
+    }
+
+    public LoadTestSettings withVirtualThreads(boolean virtualThreads) {
+        return new LoadTestSettings(books, categories, clients, warmup, duration, writeRatio, virtualThreads);
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.hrashk.books.api.loadtest;
+
+import io.github.hrashk.books.api.BooksApiApplication;
+import io.github.hrashk.books.api.util.DataSeeder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeds {@code load.books} books into a fresh database with the id allocation size and JDBC batch size
+ * of each configuration and reports the time and the statements it takes.
+ * The first one is the worst case: a sequence call and an insert statement per book.
+ * The second one is the baseline before the batching, the pooled ids without the batched inserts,
+ * so that the gains of the id allocation and of the batching can be told apart.
+ * <p>
+ * Run with {@code ./mvnw -P load-test test -Dload.main-class=io.github.hrashk.books.api.loadtest.SeedingBenchmark}.
+ */
+public class SeedingBenchmark {
+    private static final int[][] CONFIGURATIONS = {{1, 1}, {50, 1}, {1, 50}, {50, 50}, {1000, 50}};
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        System.out.printf("%n%12s %10s %10s %10s %12s %14s%n",
+                "allocation", "batch", "books", "seconds", "books/s", "statements");
+
+        for (int[] configuration : CONFIGURATIONS)
+            run(settings, configuration[0], configuration[1]);
+    }
+
+    private static void run(LoadTestSettings settings, int allocationSize, int batchSize) throws Exception {
+        try (EmbeddedServices services = EmbeddedServices.start();
+             ConfigurableApplicationContext app = new SpringApplicationBuilder(BooksApiApplication.class, DataSeeder.class)
+                     .properties("server.port=0", "logging.level.root=warn")
+                     .run(services.arguments(
+                             "--books-api.id-allocation-size=" + allocationSize,
+                             "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                             "--spring.jpa.properties.hibernate.generate_statistics=true"))) {
+            Statistics statistics = app.getBean(EntityManagerFactory.class)
+                    .unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+
+            long start = System.nanoTime();
+            app.getBean(DataSeeder.class).seedAtScale(settings.categories(), settings.books());
+            double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+
+            System.out.printf("%12d %10d %10d %10.1f %12.0f %14d%n", allocationSize, batchSize, settings.books(),
+                    seconds, settings.books() / seconds, statistics.getPrepareStatementCount());
+        }
+    }
+}
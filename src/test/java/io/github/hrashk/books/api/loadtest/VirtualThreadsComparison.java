@@ -0,0 +1,16 @@
+package io.github.hrashk.books.api.loadtest;
+
+/**
+ * Runs the {@link LoadTest} with the app on platform threads, then on virtual threads.
+ * The difference shows once the clients outnumber the Tomcat threads, e.g. with {@code -Dload.clients=1000}.
+ */
+public class VirtualThreadsComparison {
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            System.out.printf("%n=== Virtual threads %s ===%n", virtualThreads ? "on" : "off");
+            LoadTest.report(LoadTest.run(settings.withVirtualThreads(virtualThreads)), settings);
+        }
+    }
+}
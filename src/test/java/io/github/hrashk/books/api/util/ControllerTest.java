@@ -1,16 +1,22 @@
 package io.github.hrashk.books.api.util;
 
+import io.github.hrashk.books.api.books.search.BookIndexService;
+import io.github.hrashk.books.api.categories.CategoryService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.*;
 import org.springframework.test.context.ContextConfiguration;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+import java.util.Objects;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "books-api.search-index.enabled=true")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @ContextConfiguration(initializers = {PostgresInitializer.class, RedisInitializer.class})
 @Import(DataSeeder.class)
@@ -20,15 +26,25 @@ public abstract class ControllerTest {
     protected TestRestTemplate rest;
     @Autowired
     protected DataSeeder seeder;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private BookIndexService bookIndex;
+    @Autowired
+    private CacheManager cacheManager;
 
     @BeforeEach
     void injectSampleData() {
         seeder.seed(10);
+        bookIndex.rebuild();
     }
 
     @AfterEach
     void deleteAllEntities() {
         seeder.clear();
+        categoryService.reload();
+        // the next test may seed a category or a book of the same name
+        cacheManager.getCacheNames().forEach(name -> Objects.requireNonNull(cacheManager.getCache(name)).clear());
     }
 
     public <T> ResponseEntity<T> put(String url, Object request, Class<T> responseType, Object... urlVariables) {
@@ -38,6 +54,14 @@ public abstract class ControllerTest {
         return rest.exchange(url, HttpMethod.PUT, new HttpEntity<>(request, headers), responseType, urlVariables);
     }
 
+    public <T> ResponseEntity<T> getIfNoneMatch(String url, String eTag, Class<T> responseType,
+                                                Object... urlVariables) {
+        var headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+
+        return rest.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), responseType, urlVariables);
+    }
+
     public <T> ResponseEntity<T> delete(String url, Class<T> responseType, Object... urlVariables) {
         return rest.exchange(url, HttpMethod.DELETE, HttpEntity.EMPTY, responseType, urlVariables);
     }
@@ -10,6 +10,7 @@ import lombok.experimental.Accessors;
 import net.datafaker.Faker;
 import org.springframework.boot.test.context.TestComponent;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Random;
@@ -19,6 +20,7 @@ import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 @TestComponent
@@ -26,6 +28,8 @@ import java.util.stream.Stream;
 @Getter
 @Accessors(fluent = true)
 public final class DataSeeder {
+    private static final int CHUNK_SIZE = 1000;
+
     private final BookRepository booksRepo;
     private final CategoryRepository categoryRepo;
 
@@ -40,6 +44,23 @@ public final class DataSeeder {
         books = booksRepo.saveAll(sampleBooks(count));
     }
 
+    /**
+     * Seeds more entities than the faker has distinct names for: the names get a numeric suffix,
+     * and the books are saved in chunks so that the persistence context stays small.
+     */
+    public void seedAtScale(int categoryCount, int bookCount) {
+        categories = categoryRepo.saveAll(IntStream.range(0, categoryCount)
+                .mapToObj(i -> new Category().toBuilder().name(faker.book().genre() + " " + i).build())
+                .toList());
+        books = new ArrayList<>(bookCount);
+
+        for (int from = 0; from < bookCount; from += CHUNK_SIZE) {
+            books.addAll(booksRepo.saveAll(IntStream.range(from, Math.min(from + CHUNK_SIZE, bookCount))
+                    .mapToObj(i -> aRandomBook().toBuilder().title(faker.book().title() + " " + i).build())
+                    .toList()));
+        }
+    }
+
     public void flush() {
         categoryRepo.flush();
         booksRepo.flush();
@@ -5,6 +5,7 @@ import org.springframework.context.ApplicationContextInitializer;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
 
 public class PostgresInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
 
@@ -12,16 +13,26 @@ public class PostgresInitializer implements ApplicationContextInitializer<Config
             .withUsername("postgres")
             .withPassword("postgres")
             .withDatabaseName("books")
-            .withInitScript("init.sql")
+            // for the change data capture
+            .withCommand("postgres", "-c", "fsync=off", "-c", "wal_level=logical")
+            .withCopyToContainer(
+                    Transferable.of("echo 'host replication all all scram-sha-256' >> $PGDATA/pg_hba.conf"),
+                    "/docker-entrypoint-initdb.d/replication.sh")
             .waitingFor(Wait.forListeningPort());
 
     @Override
     public void initialize(final ConfigurableApplicationContext applicationContext) {
         POSTGRE_SQL_CONTAINER.start();
         TestPropertyValues.of(
-                "spring.datasource.url=%s&currentSchema=books_schema".formatted(POSTGRE_SQL_CONTAINER.getJdbcUrl()),
+                "spring.datasource.url=%s&currentSchema=books_schema&reWriteBatchedInserts=true".formatted(POSTGRE_SQL_CONTAINER.getJdbcUrl()),
                 "spring.datasource.username=" + POSTGRE_SQL_CONTAINER.getUsername(),
-                "spring.datasource.password=" + POSTGRE_SQL_CONTAINER.getPassword()
+                "spring.datasource.password=" + POSTGRE_SQL_CONTAINER.getPassword(),
+                "spring.r2dbc.url=r2dbc:postgresql://%s:%d/%s?schema=books_schema".formatted(
+                        POSTGRE_SQL_CONTAINER.getHost(),
+                        POSTGRE_SQL_CONTAINER.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT),
+                        POSTGRE_SQL_CONTAINER.getDatabaseName()),
+                "spring.r2dbc.username=" + POSTGRE_SQL_CONTAINER.getUsername(),
+                "spring.r2dbc.password=" + POSTGRE_SQL_CONTAINER.getPassword()
         ).applyTo(applicationContext.getEnvironment());
     }
 }